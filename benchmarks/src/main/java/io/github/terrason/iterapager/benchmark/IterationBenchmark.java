@@ -0,0 +1,91 @@
+package io.github.terrason.iterapager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 迭代与展开的开销，结果为每个元素的平均耗时. 以手写循环直接调用数据源作为基准。
+ * <p>
+ * 分配率需加上 {@code -prof gc} 运行。
+ *
+ * @author lipei
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(PagedData.ROWS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IterationBenchmark {
+
+    @Benchmark
+    public void handLoop(PagedData source, Blackhole bh) {
+        for (int page = 0; ; page++) {
+            List<Integer> elements = page < source.pages.size() ? source.pages.get(page) : null;
+            if (elements == null || elements.isEmpty()) {
+                return;
+            }
+            for (int i = 0, size = elements.size(); i < size; i++) {
+                bh.consume(elements.get(i));
+            }
+            if (elements.size() < source.batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按页迭代，每页内手写循环
+     */
+    @Benchmark
+    public void pageIterator(PagedData source, Blackhole bh) {
+        Iterator<Collection<Integer>> pages = source.pager().iterator();
+        while (pages.hasNext()) {
+            for (Integer e : pages.next()) {
+                bh.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public void concat(PagedData source, Blackhole bh) {
+        Iterator<Integer> elements = source.pager().concat();
+        while (elements.hasNext()) {
+            bh.consume(elements.next());
+        }
+    }
+
+    @Benchmark
+    public void concatWithMapper(PagedData source, Blackhole bh) {
+        Iterator<Long> elements = source.pager().concat(Integer::longValue);
+        while (elements.hasNext()) {
+            bh.consume(elements.next());
+        }
+    }
+
+    @Benchmark
+    public void flat(PagedData source, Blackhole bh) {
+        for (Integer e : source.pager().flat()) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    public void flatWithMapper(PagedData source, Blackhole bh) {
+        for (Long e : source.pager().flat(Integer::longValue)) {
+            bh.consume(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.terrason.iterapager.benchmark;
+
+import io.github.terrason.iterapager.IteraPager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有序分页适配生产者时取上一页最后一个元素的开销. {@link List}可以直接按下标获取，
+ * {@link LinkedHashSet}这类不是{@link java.util.Deque}或{@link java.util.SortedSet}的普通集合需要遍历整页。
+ *
+ * @author lipei
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(PagedData.ROWS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LastElementBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SetPages {
+        List<Collection<Integer>> pages;
+
+        @Setup
+        public void setUp(PagedData source) {
+            pages = new ArrayList<>(source.pages.size());
+            for (List<Integer> page : source.pages) {
+                pages.add(new LinkedHashSet<>(page));
+            }
+        }
+
+        Collection<Integer> after(PagedData source, Integer last) {
+            int index = last == null ? 0 : (last + 1) / source.batchSize;
+            return index < pages.size() ? pages.get(index) : Collections.emptyList();
+        }
+    }
+
+    @Benchmark
+    public void orderedList(PagedData source, Blackhole bh) {
+        for (Collection<Integer> page : IteraPager.<Integer>ofOrdered(source.batchSize, (p, last) -> source.after(last)).timesLimit(Integer.MAX_VALUE)) {
+            bh.consume(page);
+        }
+    }
+
+    @Benchmark
+    public void orderedSet(PagedData source, SetPages set, Blackhole bh) {
+        for (Collection<Integer> page : IteraPager.<Integer>ofOrdered(source.batchSize, (p, last) -> set.after(source, last)).timesLimit(Integer.MAX_VALUE)) {
+            bh.consume(page);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.terrason.iterapager.benchmark;
+
+import io.github.terrason.iterapager.IteraPager;
+import io.github.terrason.iterapager.Pageable;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 内存中的分页数据源. 每页返回预先生成的子列表，不产生额外分配，测得的即是分页框架本身的开销。
+ *
+ * @author lipei
+ */
+@State(Scope.Benchmark)
+public class PagedData {
+    /**
+     * 每次迭代的数据总量，与{@link org.openjdk.jmh.annotations.OperationsPerInvocation}一致
+     */
+    public static final int ROWS = 100_000;
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    public List<Integer> data;
+    public List<List<Integer>> pages;
+
+    @Setup
+    public void setUp() {
+        data = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            data.add(i);
+        }
+        pages = new ArrayList<>(ROWS / batchSize + 1);
+        for (int start = 0; start < ROWS; start += batchSize) {
+            pages.add(data.subList(start, Math.min(start + batchSize, ROWS)));
+        }
+    }
+
+    /**
+     * 按偏移量分页的分页器. 小批量时页数超过默认的最大循环次数，这里不做限制。
+     */
+    public IteraPager<Integer> pager() {
+        return new IteraPager<>(batchSize, this::page).timesLimit(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按偏移量分页
+     */
+    public List<Integer> page(Pageable pageable) {
+        int index = pageable.page() - 1;
+        return index < pages.size() ? pages.get(index) : Collections.emptyList();
+    }
+
+    /**
+     * 按上一页最后一个元素分页，元素值即下标
+     */
+    public List<Integer> after(Integer last) {
+        int index = last == null ? 0 : (last + 1) / batchSize;
+        return index < pages.size() ? pages.get(index) : Collections.emptyList();
+    }
+}
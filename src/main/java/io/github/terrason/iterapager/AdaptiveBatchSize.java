@@ -0,0 +1,134 @@
+package io.github.terrason.iterapager;
+
+import java.time.Duration;
+
+/**
+ * 根据生产者耗时动态调整每页大小.
+ * <p>
+ * 配置本身不可变，每次迭代创建独立的{@link Tuner}记录测量状态。
+ *
+ * @author lipei
+ */
+public final class AdaptiveBatchSize {
+    /**
+     * 每页耗时的指数平滑系数
+     */
+    private static final double SMOOTHING = 0.3;
+    /**
+     * 追求吞吐量时每次调整的倍数
+     */
+    private static final double THROUGHPUT_STEP = 1.25;
+
+    private final int min;
+    private final int max;
+    /**
+     * 目标耗时，{@code 0}表示追求最大吞吐量
+     */
+    private final long targetNanos;
+
+    private AdaptiveBatchSize(int min, int max, long targetNanos) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException(String.format("分页大小范围[%d, %d]不合法", min, max));
+        }
+        this.min = min;
+        this.max = max;
+        this.targetNanos = targetNanos;
+    }
+
+    /**
+     * 使每页耗时接近目标耗时. 每页大小每次最多增大一倍或减小一半。
+     *
+     * @param target 每页目标耗时
+     * @param min    最小分页大小
+     * @param max    最大分页大小
+     */
+    public static AdaptiveBatchSize targetLatency(Duration target, int min, int max) {
+        if (target.isNegative() || target.isZero()) {
+            throw new IllegalArgumentException("目标耗时必须为正数：" + target);
+        }
+        return new AdaptiveBatchSize(min, max, target.toNanos());
+    }
+
+    /**
+     * 使每秒获取的数据量最大. 每页大小沿吞吐量上升的方向逐步调整。
+     *
+     * @param min 最小分页大小
+     * @param max 最大分页大小
+     */
+    public static AdaptiveBatchSize maxThroughput(int min, int max) {
+        return new AdaptiveBatchSize(min, max, 0);
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    Tuner newTuner(int initialLimit) {
+        return new Tuner(clamp(initialLimit));
+    }
+
+    private int clamp(long limit) {
+        return (int) Math.max(min, Math.min(max, limit));
+    }
+
+    /**
+     * 单次迭代的调整状态
+     */
+    final class Tuner {
+        private int limit;
+        private double nanosPerRow;
+        private double lastThroughput;
+        private boolean growing = true;
+
+        private Tuner(int limit) {
+            this.limit = limit;
+        }
+
+        int getLimit() {
+            return limit;
+        }
+
+        /**
+         * 记录一页的获取结果，计算下一页的大小.
+         *
+         * @param size  本页数据量
+         * @param nanos 本页获取耗时
+         * @return 下一页大小
+         */
+        int next(int size, long nanos) {
+            if (size <= 0 || nanos <= 0) {
+                return limit;
+            }
+            limit = targetNanos > 0 ? towardLatency(size, nanos) : towardThroughput(size, nanos);
+            return limit;
+        }
+
+        private int towardLatency(int size, long nanos) {
+            double perRow = (double) nanos / size;
+            nanosPerRow = nanosPerRow == 0 ? perRow : (1 - SMOOTHING) * nanosPerRow + SMOOTHING * perRow;
+            long desired = (long) (targetNanos / nanosPerRow);
+            long bounded = Math.max(limit / 2, Math.min((long) limit * 2, desired));
+            return clamp(bounded);
+        }
+
+        private int towardThroughput(int size, long nanos) {
+            double throughput = size / (double) nanos;
+            if (lastThroughput > 0 && throughput < lastThroughput) {
+                growing = !growing;
+            }
+            lastThroughput = throughput;
+            long stepped = growing
+                    ? Math.max(limit + 1, (long) Math.ceil(limit * THROUGHPUT_STEP))
+                    : Math.min(limit - 1, (long) Math.floor(limit / THROUGHPUT_STEP));
+            int bounded = clamp(stepped);
+            if (bounded == limit) {//到达边界后反向
+                growing = !growing;
+            }
+            return bounded;
+        }
+    }
+}
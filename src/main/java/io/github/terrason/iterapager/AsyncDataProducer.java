@@ -0,0 +1,21 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步数据源产生器
+ *
+ * @param <L> 上一批数据的最后一个元素类型
+ * @param <R> 查询结果类型
+ * @author lipei
+ * @see AsyncPager#ofOrdered(int, AsyncDataProducer)
+ */
+@FunctionalInterface
+public interface AsyncDataProducer<L, R> {
+    /**
+     * @param pagination 分页参数
+     * @param lastData   上一批数据的最后一个元素，第一次为{@code null}
+     */
+    CompletionStage<R> next(Pageable pagination, @Nullable L lastData);
+}
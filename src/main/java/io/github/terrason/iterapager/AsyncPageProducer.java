@@ -0,0 +1,22 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步生产分页数据，适用于R2DBC、异步HTTP客户端等非阻塞驱动.
+ *
+ * @param <M> 分页查询结果类型
+ * @author lipei
+ * @see AsyncPager
+ */
+@FunctionalInterface
+public interface AsyncPageProducer<M> {
+    /**
+     * 生产下一页数据，不能阻塞调用线程
+     *
+     * @param pageable 分页参数
+     * @param lastData 最后一次获取到的数据
+     */
+    CompletionStage<PageProducer.Elem<M>> next(Pageable pageable, @Nullable M lastData);
+}
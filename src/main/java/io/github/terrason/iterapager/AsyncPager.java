@@ -0,0 +1,209 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 非阻塞的分页处理工具.
+ * <p>
+ * 每页数据返回后才发起下一页的获取，有序分页同样以上一页数据作为下一页的游标，判断到达末尾的规则与{@link ModelPager}相同。
+ * 整个过程不阻塞任何线程，一个线程可以同时驱动大量扫描。
+ *
+ * @param <M> 分页查询结果类型
+ * @author lipei
+ */
+public class AsyncPager<M> {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    protected final int batchSize;
+    protected final AsyncPageProducer<M> producer;
+    protected int timesLimit = 10000;
+
+    /**
+     * @param batchSize 批处理大小
+     * @param producer  数据源产生器. 一次只能产生batchSize对应的数据量，少了将停止循环，多了会产生bug。
+     */
+    public AsyncPager(int batchSize, AsyncPageProducer<M> producer) {
+        this.batchSize = batchSize;
+        this.producer = producer;
+    }
+
+    /**
+     * 按分页参数查询的分批数据
+     *
+     * @param batchSize 批处理大小
+     * @param producer  数据源产生器. 一次只能产生batchSize对应的数据量，少了将停止循环，多了会产生bug。
+     */
+    public static <T> AsyncPager<Collection<T>> of(int batchSize,
+            Function<Pageable, ? extends CompletionStage<? extends Collection<T>>> producer) {
+        return new AsyncPager<>(batchSize, (pageable, lastData) -> producer.apply(pageable).thenApply(AsyncPager::page));
+    }
+
+    /**
+     * 按顺序查询的分批数据
+     *
+     * @param batchSize 批处理大小
+     * @param producer  数据源产生器. 第二个参数为上一批数据的最后一个元素，第一次为{@code null}。
+     * @see IteraPager#ofOrdered(int, DataProducer)
+     */
+    public static <T> AsyncPager<Collection<T>> ofOrdered(int batchSize,
+            AsyncDataProducer<T, ? extends Collection<T>> producer) {
+        return new AsyncPager<>(batchSize, (pageable, lastData) -> {
+            T lastElement = lastData == null || lastData.isEmpty() ? null : DelegatedPageProducer.lastElement(lastData);
+            return producer.next(pageable, lastElement).thenApply(AsyncPager::page);
+        });
+    }
+
+    private static <T> PageProducer.Elem<Collection<T>> page(@Nullable Collection<T> data) {
+        Collection<T> page = data == null ? Collections.emptyList() : data;
+        return PageElements.of(page, page.size());
+    }
+
+    /**
+     * 设置最大循环次数，防止死循环。默认次数 10000.
+     */
+    public AsyncPager<M> timesLimit(int limitTimes) {
+        this.timesLimit = limitTimes;
+        return this;
+    }
+
+    /**
+     * 逐页处理数据.
+     *
+     * @param consumer 每页数据的处理逻辑，在获取到该页数据的线程中调用
+     * @return 处理完成时完成，结果为数据总条数；取消该结果会停止获取
+     */
+    public CompletableFuture<Long> forEachAsync(Consumer<? super M> consumer) {
+        return mapPagesAsync(page -> {
+            consumer.accept(page);
+            return DONE;
+        });
+    }
+
+    /**
+     * 逐页异步处理数据. 处理第N页的同时获取第N+1页，第N页处理完成后才处理第N+1页。
+     *
+     * @param handler 每页数据的异步处理逻辑
+     * @return 所有页处理完成时完成，结果为数据总条数；任一页获取或处理失败时以该异常结束；取消该结果会停止获取
+     */
+    public CompletableFuture<Long> mapPagesAsync(Function<? super M, ? extends CompletionStage<?>> handler) {
+        Scan scan = new Scan(handler);
+        scan.loop(scan.fetch());
+        return scan.done;
+    }
+
+    private final class Scan {
+        private final Function<? super M, ? extends CompletionStage<?>> handler;
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+        @Nullable
+        private M lastData;
+        private int times;
+        private long total;
+
+        Scan(Function<? super M, ? extends CompletionStage<?>> handler) {
+            this.handler = handler;
+        }
+
+        private CompletableFuture<PageProducer.Elem<M>> fetch() {
+            CompletableFuture<PageProducer.Elem<M>> future = new CompletableFuture<>();
+            if (times > timesLimit) {
+                future.completeExceptionally(ModelPager.exceedTimesLimit(timesLimit));
+                return future;
+            }
+            times++;
+            try {
+                return producer.next(PageQuery.of(times, batchSize), lastData).toCompletableFuture();
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+
+        /**
+         * 处理已发起获取的一页. 已完成的获取直接在当前线程循环处理，未完成时注册回调后返回。
+         */
+        private void loop(CompletableFuture<PageProducer.Elem<M>> fetching) {
+            while (!done.isDone()) {
+                if (!fetching.isDone()) {
+                    CompletableFuture<PageProducer.Elem<M>> pending = fetching;
+                    pending.whenComplete((elements, e) -> loop(pending));
+                    return;
+                }
+                PageProducer.Elem<M> elements;
+                try {
+                    elements = fetching.join();
+                } catch (CompletionException | CancellationException e) {
+                    fail(e);
+                    return;
+                }
+                int size = elements.getSize();
+                if (size == 0) {
+                    done.complete(total);
+                    return;
+                }
+                if (size > batchSize) {
+                    fail(ModelPager.exceedBatchSize(size, batchSize));
+                    return;
+                }
+                total += size;
+                long totalLimit = elements.total();
+                boolean last = size < batchSize || totalLimit > 0 && totalLimit <= total;
+                M data = elements.getData();
+                lastData = data;
+                CompletableFuture<PageProducer.Elem<M>> next = last ? null : fetch();
+                CompletableFuture<?> handled;
+                try {
+                    handled = handler.apply(data).toCompletableFuture();
+                } catch (RuntimeException | Error e) {
+                    handled = new CompletableFuture<>();
+                    handled.completeExceptionally(e);
+                }
+                if (!handled.isDone()) {
+                    handled.whenComplete((r, e) -> afterHandled(e, next));
+                    return;
+                }
+                Throwable failure = failureOf(handled);
+                if (failure != null || next == null) {
+                    afterHandled(failure, next);
+                    return;
+                }
+                fetching = next;
+            }
+        }
+
+        private void afterHandled(@Nullable Throwable failure, @Nullable CompletableFuture<PageProducer.Elem<M>> next) {
+            if (failure != null) {
+                if (next != null) {
+                    next.cancel(false);
+                }
+                fail(failure);
+            } else if (next == null) {
+                done.complete(total);
+            } else {
+                loop(next);
+            }
+        }
+
+        @Nullable
+        private Throwable failureOf(CompletableFuture<?> future) {
+            try {
+                future.join();
+                return null;
+            } catch (CompletionException | CancellationException e) {
+                return e;
+            }
+        }
+
+        private void fail(Throwable e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            done.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * 多线程批处理流水线.
+ * <p>
+ * 调用{@link #run(Consumer)}的线程按顺序获取分页数据，放入有界队列，由多个工作线程并发处理，
+ * 内存中最多同时存在 {@code queueCapacity + parallelism + 1} 页数据。
+ * 处理进度以低水位表示：第1页至水位页已全部处理完成，可用于记录断点。
+ *
+ * @param <M> 分页查询结果类型
+ * @author lipei
+ */
+public class BatchPipeline<M> {
+    private static final long OFFER_INTERVAL_MILLIS = 50;
+
+    private final ModelPager<M> pager;
+    private final int parallelism;
+    private final int queueCapacity;
+    @Nullable
+    private Executor executor;
+    @Nullable
+    private IntConsumer watermarkListener;
+
+    private volatile int watermark;
+    private final BitSet completed = new BitSet();
+    /**
+     * 正在回调水位监听器的线程数加上错过的水位变化，非0时由正在回调的线程补发最新水位
+     */
+    private final AtomicInteger notifying = new AtomicInteger();
+    /**
+     * 已回调的水位，只在回调水位监听器的线程中访问
+     */
+    private int notified;
+    @Nullable
+    private volatile Throwable failure;
+
+    BatchPipeline(ModelPager<M> pager, int parallelism, int queueCapacity) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行数不能小于1：" + parallelism);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("队列容量不能小于1：" + queueCapacity);
+        }
+        this.pager = pager;
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 设置执行工作线程的线程池. 未设置时每次运行创建{@code parallelism}个线程（Java 21 及以上为虚拟线程），运行结束后销毁。
+     * <p>
+     * 线程池至少要有{@code parallelism}个空闲线程，已提交未执行的工作任务会让获取一直等待。
+     * 线程池拒绝任务时流水线失败，已启动的工作线程处理完队列后退出。
+     */
+    public BatchPipeline<M> executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 设置水位监听器. 水位前进时回调，参数为新的水位页。
+     * <p>
+     * 在某个工作线程中、不持有锁时回调，同一时间只有一个回调。回调较慢时只回调最新的水位，中间的水位被跳过，水位不会后退。
+     */
+    public BatchPipeline<M> onWatermark(IntConsumer listener) {
+        this.watermarkListener = listener;
+        return this;
+    }
+
+    /**
+     * 低水位：第1页至该页已全部处理完成. 可在其他线程中随时读取。
+     */
+    public int getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * 运行流水线，所有数据处理完成或失败后返回.
+     *
+     * @param consumer 每页数据的处理逻辑，会被多个线程并发调用
+     * @return 处理完成的页数
+     */
+    public int run(Consumer<? super M> consumer) {
+        synchronized (this) {
+            watermark = 0;
+            completed.clear();
+            failure = null;
+            notified = 0;
+            notifying.set(0);
+        }
+        BlockingQueue<Batch<M>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        CountDownLatch finished = new CountDownLatch(parallelism);
+        AtomicInteger alive = new AtomicInteger();
+        ExecutorService ownExecutor = executor == null ? PagerExecutors.newWorkerPool("iterapager-batch", parallelism) : null;
+        Executor workers = ownExecutor == null ? executor : ownExecutor;
+        try {
+            int started = 0;
+            for (; started < parallelism; started++) {
+                alive.incrementAndGet();
+                try {
+                    workers.execute(() -> work(queue, consumer, alive, finished));
+                } catch (RuntimeException e) {
+                    alive.decrementAndGet();
+                    fail(e);
+                    break;
+                }
+            }
+            //未启动的工作线程不需要等待
+            for (int i = started; i < parallelism; i++) {
+                finished.countDown();
+            }
+            try {
+                drive(queue, alive);
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+            for (int i = 0; i < started; i++) {
+                if (!offer(queue, Batch.end(), alive)) {
+                    break;
+                }
+            }
+            Uninterruptibles.awaitUninterruptibly(finished);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+        Throwable cause = failure;
+        if (cause != null) {
+            throw Concurrents.propagate(cause);
+        }
+        return watermark;
+    }
+
+    private void drive(BlockingQueue<Batch<M>> queue, AtomicInteger alive) {
+        Iterator<M> pages = pager.iterator();
+        int page = 0;
+        try {
+            while (failure == null && pages.hasNext()) {
+                if (!offer(queue, new Batch<>(++page, pages.next()), alive)) {
+                    return;
+                }
+            }
+        } finally {
+            //提前停止时取消预取
+            if (pages instanceof CloseableIterator) {
+                ((CloseableIterator<?>) pages).close();
+            }
+        }
+    }
+
+    /**
+     * 放入待处理队列，队列满时等待. 工作线程全部退出时不再等待。
+     *
+     * @return {@code false}-工作线程已全部退出
+     */
+    private boolean offer(BlockingQueue<Batch<M>> queue, Batch<M> batch, AtomicInteger alive) {
+        try {
+            while (alive.get() > 0) {
+                if (queue.offer(batch, OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待处理队列时线程被中断", e);
+        }
+        fail(new IllegalStateException("工作线程已全部退出"));
+        return false;
+    }
+
+    private void work(BlockingQueue<Batch<M>> queue, Consumer<? super M> consumer, AtomicInteger alive, CountDownLatch finished) {
+        try {
+            while (true) {
+                Batch<M> batch = queue.take();
+                if (batch.data == null) {
+                    return;
+                }
+                if (failure != null) {//已失败，只排空队列
+                    continue;
+                }
+                try {
+                    consumer.accept(batch.data);
+                    complete(batch.page);
+                } catch (RuntimeException | Error e) {
+                    fail(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+            Thread.currentThread().interrupt();
+        } finally {
+            alive.decrementAndGet();
+            finished.countDown();
+        }
+    }
+
+    private void complete(int page) {
+        synchronized (this) {
+            completed.set(page);
+            int mark = watermark;
+            while (completed.get(mark + 1)) {
+                completed.clear(mark + 1);
+                mark++;
+            }
+            if (mark == watermark) {
+                return;
+            }
+            watermark = mark;
+        }
+        if (watermarkListener != null) {
+            notifyWatermark(watermarkListener);
+        }
+    }
+
+    /**
+     * 锁外回调水位监听器. 已有线程在回调时只记录一次错过，由该线程补发最新水位。
+     */
+    private void notifyWatermark(IntConsumer listener) {
+        if (notifying.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            int mark = watermark;
+            if (mark > notified) {
+                notified = mark;
+                listener.accept(mark);
+            }
+            missed = notifying.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void fail(Throwable cause) {
+        if (failure == null) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = cause;
+                }
+            }
+        }
+    }
+
+    private static final class Batch<M> {
+        private final int page;
+        @Nullable
+        private final M data;
+
+        Batch(int page, @Nullable M data) {
+            this.page = page;
+            this.data = data;
+        }
+
+        static <M> Batch<M> end() {
+            return new Batch<>(0, null);
+        }
+    }
+}
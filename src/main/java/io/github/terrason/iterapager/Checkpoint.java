@@ -0,0 +1,36 @@
+package io.github.terrason.iterapager;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+
+/**
+ * 分页迭代的断点. 记录已处理完成的页数、数据量和最后一页的游标键。
+ *
+ * @author lipei
+ * @see ModelPager#resumeFrom(Checkpoint)
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public final class Checkpoint {
+    /**
+     * 已处理完成的页数
+     */
+    private final int pages;
+    /**
+     * 已处理完成的数据量
+     */
+    private final long rows;
+    /**
+     * 最后一页的游标键，由{@link CheckpointCodec}编码. 按偏移量分页时为{@code null}
+     */
+    @Nullable
+    private final String lastKey;
+    /**
+     * 数据已全部处理完成
+     */
+    private final boolean finished;
+}
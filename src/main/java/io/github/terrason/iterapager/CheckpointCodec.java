@@ -0,0 +1,39 @@
+package io.github.terrason.iterapager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Function;
+
+/**
+ * 有序分页断点中游标的编解码. 解码结果作为上一页数据传给生产者，只需包含生产者用到的字段（如ID）。
+ *
+ * @param <M> 分页查询结果类型
+ * @author lipei
+ */
+public interface CheckpointCodec<M> {
+
+    String encode(M lastData);
+
+    M decode(String lastKey);
+
+    /**
+     * 以列表最后一个元素作为游标
+     *
+     * @param encoder 元素编码，如取ID转为字符串
+     * @param decoder 元素解码，如只包含ID的对象
+     */
+    static <T> CheckpointCodec<Collection<T>> ofLastElement(Function<? super T, String> encoder,
+            Function<String, ? extends T> decoder) {
+        return new CheckpointCodec<Collection<T>>() {
+            @Override
+            public String encode(Collection<T> lastData) {
+                return encoder.apply(DelegatedPageProducer.lastElement(lastData));
+            }
+
+            @Override
+            public Collection<T> decode(String lastKey) {
+                return Collections.singletonList(decoder.apply(lastKey));
+            }
+        };
+    }
+}
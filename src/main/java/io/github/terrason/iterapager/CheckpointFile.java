@@ -0,0 +1,132 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * 保存断点的本地文件.
+ * <p>
+ * 先写入同目录的临时文件并刷盘，再原子重命名覆盖，进程在任意时刻退出都不会留下不完整的断点。
+ * 每次保存都要刷盘，可以通过{@link #everyPages(int)}和{@link #minInterval(Duration)}降低保存频率。
+ *
+ * @author lipei
+ */
+public final class CheckpointFile {
+    private final Path path;
+    private int everyPages = 1;
+    private long minIntervalNanos = 0;
+
+    private CheckpointFile(Path path) {
+        this.path = path;
+    }
+
+    public static CheckpointFile of(Path path) {
+        return new CheckpointFile(path);
+    }
+
+    /**
+     * 每处理完成多少页保存一次断点. 默认 1.
+     */
+    public CheckpointFile everyPages(int pages) {
+        if (pages < 1) {
+            throw new IllegalArgumentException("保存间隔页数不能小于1：" + pages);
+        }
+        this.everyPages = pages;
+        return this;
+    }
+
+    /**
+     * 两次保存之间的最短时间. 默认不限制。
+     */
+    public CheckpointFile minInterval(Duration interval) {
+        this.minIntervalNanos = interval.toNanos();
+        return this;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    int getEveryPages() {
+        return everyPages;
+    }
+
+    long getMinIntervalNanos() {
+        return minIntervalNanos;
+    }
+
+    /**
+     * 读取断点
+     *
+     * @return {@code null}-断点文件不存在
+     */
+    @Nullable
+    public Checkpoint load() {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取断点文件失败：" + path, e);
+        }
+        return new Checkpoint(
+                Integer.parseInt(properties.getProperty("pages")),
+                Long.parseLong(properties.getProperty("rows")),
+                properties.getProperty("lastKey"),
+                Boolean.parseBoolean(properties.getProperty("finished")));
+    }
+
+    /**
+     * 原子地保存断点
+     */
+    public void save(Checkpoint checkpoint) {
+        Properties properties = new Properties();
+        properties.setProperty("pages", String.valueOf(checkpoint.getPages()));
+        properties.setProperty("rows", String.valueOf(checkpoint.getRows()));
+        if (checkpoint.getLastKey() != null) {
+            properties.setProperty("lastKey", checkpoint.getLastKey());
+        }
+        properties.setProperty("finished", String.valueOf(checkpoint.isFinished()));
+
+        Path absolute = path.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                out.write(toBytes(properties));
+                channel.force(true);
+            }
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存断点文件失败：" + path, e);
+        }
+    }
+
+    public void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除断点文件失败：" + path, e);
+        }
+    }
+
+    private static byte[] toBytes(Properties properties) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store(out, "iterapager checkpoint");
+        return out.toByteArray();
+    }
+}
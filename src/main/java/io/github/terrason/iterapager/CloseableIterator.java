@@ -0,0 +1,18 @@
+package io.github.terrason.iterapager;
+
+import java.util.Iterator;
+
+/**
+ * 由后台任务驱动的迭代器. 提前结束迭代时需要调用{@link #close()}停止后台任务。
+ *
+ * @param <E> 元素类型
+ * @author lipei
+ */
+public interface CloseableIterator<E> extends Iterator<E>, AutoCloseable {
+
+    /**
+     * 停止后台任务并丢弃已缓冲的数据.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,97 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.base.Throwables;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * 并发分页的内部工具
+ *
+ * @author lipei
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Concurrents {
+
+    /**
+     * 等待异步获取的结果. 生产者抛出的异常原样抛出，受检异常包装为{@link IllegalStateException}。
+     */
+    static <V> V await(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("等待分页数据时线程被中断", e);
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        } catch (CancellationException e) {
+            throw new IllegalStateException("分页任务已取消", e);
+        }
+    }
+
+    static RuntimeException propagate(Throwable cause) {
+        Throwables.throwIfUnchecked(cause);
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * 在线程池中执行一次获取. 以{@code cancel(true)}取消时中断正在执行的线程，不再需要的获取不会继续占用数据库连接等资源。
+     */
+    static <V> CompletableFuture<V> supplyInterruptibly(Supplier<V> supplier, Executor executor) {
+        InterruptibleTask<V> task = new InterruptibleTask<>(supplier);
+        executor.execute(task);
+        return task;
+    }
+
+    private static final class InterruptibleTask<V> extends CompletableFuture<V> implements Runnable {
+        private final Supplier<V> supplier;
+        @Nullable
+        private Thread runner;
+
+        InterruptibleTask(Supplier<V> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(supplier.get());
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                //清除取消时设置的中断标记，线程池中的线程继续执行其他任务
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.terrason.iterapager;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+
+/**
+ * 分时迭代的续接点. 记录已处理完成的页数、数据量和有序分页的游标，只在内存中传递，下次从这里继续而不重复获取。
+ *
+ * @param <M> 分页查询结果类型
+ * @author lipei
+ * @see ModelPager#iterateFor(Continuation, java.time.Duration, java.util.function.Consumer)
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString
+public final class Continuation<M> {
+    /**
+     * 已处理完成的页数
+     */
+    private final int pages;
+    /**
+     * 已处理完成的数据量
+     */
+    private final long rows;
+    /**
+     * 有序分页作为下一页游标的数据，如最后一个元素. 按偏移量分页时为{@code null}
+     */
+    @Nullable
+    private final M lastData;
+    /**
+     * 数据已全部处理完成
+     */
+    private final boolean finished;
+    /**
+     * 估算的每页耗时（获取及处理），用于判断剩余时间能否再处理一页
+     */
+    private final long pageNanos;
+}
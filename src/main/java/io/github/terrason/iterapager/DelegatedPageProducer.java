@@ -4,6 +4,9 @@ import com.google.common.collect.Iterables;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.SortedSet;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 import java.util.function.ToLongFunction;
@@ -24,12 +27,29 @@ public class DelegatedPageProducer<M, D> implements PageProducer<M> {
 
     static <E> DelegatedPageProducer<Collection<E>, Collection<E>> ofCollection(DataProducer<E, ? extends Collection<E>> producer) {
         DataProducer<Collection<E>, Collection<E>> dp = (pageable, oldCollection) -> {
-            E lastElement = oldCollection == null || oldCollection.isEmpty() ? null : Iterables.getLast(oldCollection);
+            E lastElement = oldCollection == null || oldCollection.isEmpty() ? null : lastElement(oldCollection);
             return producer.next(pageable, lastElement);
         };
         return new DelegatedPageProducer<>(dp, a -> a, Collection::size, null);
     }
 
+    /**
+     * 取最后一个元素. {@link List}、{@link Deque}、{@link SortedSet}直接获取，其他集合需要遍历。
+     */
+    static <E> E lastElement(Collection<E> collection) {
+        if (collection instanceof List) {
+            List<E> list = (List<E>) collection;
+            return list.get(list.size() - 1);
+        }
+        if (collection instanceof Deque) {
+            return ((Deque<E>) collection).getLast();
+        }
+        if (collection instanceof SortedSet) {
+            return ((SortedSet<E>) collection).last();
+        }
+        return Iterables.getLast(collection);
+    }
+
     static <M> DelegatedPageProducer<M, M> ofModal(DataProducer<M, M> producer, ToIntFunction<M> sizeMapper) {
         return new DelegatedPageProducer<>(producer, a -> a, sizeMapper, null);
     }
@@ -0,0 +1,186 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Range;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * 多个进程分工扫描的分页. 每个进程从{@link LeaseStore}领取工作单元，只处理自己领取的单元.
+ * <p>
+ * 按偏移量分页时，每连续pagesPerLease页为一个单元，单元数由数据末尾决定；有序分页按{@link PartitionedPager}的键区间划分单元。
+ * 消费者每请求一页时按需续租，租约丢失（处理一页的时间超过租约时长）时放弃该单元。
+ * 进程崩溃后租约到期，其他进程从头重新处理该单元，所以每条数据至少处理一次，可能重复。
+ *
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+public class DistributedPager<T> implements PagedIterable<T> {
+    protected final LeaseStore store;
+    protected final int units;
+    /**
+     * 按序号创建工作单元的分页
+     */
+    protected final IntFunction<Iterable<? extends Collection<T>>> unitPager;
+    /**
+     * 单元内的行数，单元返回的数据少于该行数时为最后一个有数据的单元；{@code 0}表示单元数固定
+     */
+    protected final long unitRows;
+    protected Duration leaseTime = Duration.ofMinutes(1);
+    @Nullable
+    protected String owner;
+
+    protected DistributedPager(LeaseStore store, int units, long unitRows, IntFunction<Iterable<? extends Collection<T>>> unitPager) {
+        this.store = store;
+        this.units = units;
+        this.unitRows = unitRows;
+        this.unitPager = unitPager;
+    }
+
+    /**
+     * 按偏移量分页的分工扫描，每连续pagesPerLease页为一个工作单元.
+     *
+     * @param pager         按偏移量分页，如{@link IteraPager#of}
+     * @param pagesPerLease 每个工作单元的页数
+     * @param store         租约存储，所有进程使用同一个存储
+     */
+    public static <T> DistributedPager<T> ofPages(IteraPager<T> pager, int pagesPerLease, LeaseStore store) {
+        if (pagesPerLease < 1) {
+            throw new IllegalArgumentException("每个工作单元的页数不能小于1：" + pagesPerLease);
+        }
+        if (!pager.isOffsetIndependent()) {
+            throw new UnsupportedOperationException("有序分页请按键区间分工：DistributedPager.ofPartitions");
+        }
+        int unitRows = Math.multiplyExact(pagesPerLease, pager.batchSize);
+        return new DistributedPager<>(store, Integer.MAX_VALUE, unitRows,
+                unit -> pager.skip(Math.multiplyExact(unit, unitRows)).limit(unitRows));
+    }
+
+    /**
+     * 有序分页的分工扫描，每个键区间为一个工作单元.
+     *
+     * @param pager 按键区间分区的有序分页，各进程的分区必须相同
+     * @param store 租约存储，所有进程使用同一个存储
+     */
+    public static <K extends Comparable<? super K>, T> DistributedPager<T> ofPartitions(PartitionedPager<K, T> pager, LeaseStore store) {
+        return new DistributedPager<>(store, pager.partitions.size(), 0, unit -> {
+            Range<K> range = pager.partitions.get(unit);
+            return pager.partition(range);
+        });
+    }
+
+    /**
+     * 设置租约时长，应大于消费者处理一页的时间. 默认 1 分钟。
+     */
+    public DistributedPager<T> leaseTime(Duration leaseTime) {
+        if (leaseTime.isNegative() || leaseTime.isZero()) {
+            throw new IllegalArgumentException("租约时长必须大于0：" + leaseTime);
+        }
+        this.leaseTime = leaseTime;
+        return this;
+    }
+
+    /**
+     * 设置租约持有者. 未设置时每次迭代使用进程名加随机后缀。
+     */
+    public DistributedPager<T> owner(String owner) {
+        this.owner = owner;
+        return this;
+    }
+
+    /**
+     * 领取并处理工作单元，直到没有可领取的单元. 提前结束迭代时请调用{@link CloseableIterator#close()}放弃当前租约。
+     */
+    @Override
+    public CloseableIterator<Collection<T>> iterator() {
+        String name = owner == null
+                ? ManagementFactory.getRuntimeMXBean().getName() + "#" + UUID.randomUUID().toString().substring(0, 8)
+                : owner;
+        return new Worker(name);
+    }
+
+    private final class Worker extends AbstractIterator<Collection<T>> implements CloseableIterator<Collection<T>> {
+        private final String owner;
+        @Nullable
+        private Lease lease;
+        @Nullable
+        private Iterator<? extends Collection<T>> pages;
+        private long rows;
+
+        Worker(String owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        protected Collection<T> computeNext() {
+            while (true) {
+                if (lease == null && !claim()) {
+                    return endOfData();
+                }
+                if (!renew()) {
+                    abandon();
+                    continue;
+                }
+                Collection<T> page;
+                try {
+                    page = pages.hasNext() ? pages.next() : null;
+                } catch (RuntimeException | Error e) {
+                    close();
+                    throw e;
+                }
+                if (page != null) {
+                    rows += page.size();
+                    return page;
+                }
+                store.complete(lease, unitRows > 0 && rows < unitRows);
+                abandon();
+            }
+        }
+
+        private boolean claim() {
+            Lease claimed = store.claim(units, owner, leaseTime);
+            if (claimed == null) {
+                return false;
+            }
+            lease = claimed;
+            pages = unitPager.apply(claimed.getUnit()).iterator();
+            rows = 0;
+            return true;
+        }
+
+        /**
+         * 剩余时间不到一半时续租
+         */
+        private boolean renew() {
+            Lease current = lease;
+            if (current.getExpiresAt() - System.currentTimeMillis() > leaseTime.toMillis() / 2) {
+                return true;
+            }
+            lease = store.renew(current, leaseTime);
+            return lease != null;
+        }
+
+        private void abandon() {
+            if (pages instanceof CloseableIterator) {
+                ((CloseableIterator<?>) pages).close();
+            }
+            lease = null;
+            pages = null;
+        }
+
+        @Override
+        public void close() {
+            Lease current = lease;
+            abandon();
+            if (current != null) {
+                store.release(current);
+            }
+        }
+    }
+}
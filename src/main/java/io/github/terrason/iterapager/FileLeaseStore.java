@@ -0,0 +1,192 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 基于本地文件锁的租约存储，适用于同一台机器（或共享文件系统）上的多个进程.
+ * <p>
+ * 每次操作先对目录下的锁文件加排他锁，读取租约文件，修改后原子地写回。
+ * 文件锁由整个JVM持有，同一JVM内对同一目录的操作再用内存中的锁互斥。
+ *
+ * @author lipei
+ */
+public final class FileLeaseStore implements LeaseStore {
+    private static final ConcurrentMap<Path, Object> MONITORS = new ConcurrentHashMap<>();
+    private static final String END = "end";
+    private static final String DONE = "done.";
+    private static final String LEASE = "lease.";
+
+    private final Path directory;
+    private final Path stateFile;
+    private final Path lockFile;
+
+    private FileLeaseStore(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.stateFile = this.directory.resolve("leases.properties");
+        this.lockFile = this.directory.resolve("leases.lock");
+    }
+
+    /**
+     * @param directory 租约文件所在目录，不存在时创建. 每个任务使用单独的目录。
+     */
+    public static FileLeaseStore of(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建租约目录失败：" + directory, e);
+        }
+        return new FileLeaseStore(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Nullable
+    @Override
+    public Lease claim(int units, String owner, Duration leaseTime) {
+        return update(state -> {
+            long now = System.currentTimeMillis();
+            String end = state.getProperty(END);
+            int limit = end == null ? units : Math.min(units, Integer.parseInt(end));
+            for (int unit = 0; unit < limit; unit++) {
+                if (state.containsKey(DONE + unit)) {
+                    continue;
+                }
+                Lease current = leaseOf(state, unit);
+                if (current == null || current.getExpiresAt() <= now) {
+                    return put(state, new Lease(unit, owner, now + leaseTime.toMillis()));
+                }
+            }
+            return null;
+        });
+    }
+
+    @Nullable
+    @Override
+    public Lease renew(Lease lease, Duration leaseTime) {
+        return update(state -> {
+            Lease current = leaseOf(state, lease.getUnit());
+            if (current == null || !current.getOwner().equals(lease.getOwner())) {
+                return null;
+            }
+            return put(state, new Lease(lease.getUnit(), lease.getOwner(), System.currentTimeMillis() + leaseTime.toMillis()));
+        });
+    }
+
+    @Override
+    public void complete(Lease lease, boolean last) {
+        update(state -> {
+            Lease current = leaseOf(state, lease.getUnit());
+            if (current == null || !current.getOwner().equals(lease.getOwner())) {
+                return null;
+            }
+            state.remove(LEASE + lease.getUnit());
+            state.setProperty(DONE + lease.getUnit(), lease.getOwner());
+            if (last) {
+                String end = state.getProperty(END);
+                int limit = lease.getUnit() + 1;
+                if (end == null || Integer.parseInt(end) > limit) {
+                    state.setProperty(END, String.valueOf(limit));
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void release(Lease lease) {
+        update(state -> {
+            Lease current = leaseOf(state, lease.getUnit());
+            if (current != null && current.getOwner().equals(lease.getOwner())) {
+                state.remove(LEASE + lease.getUnit());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 删除租约文件，任务重新开始
+     */
+    public void delete() {
+        update(state -> {
+            state.clear();
+            return null;
+        });
+    }
+
+    @Nullable
+    private static Lease leaseOf(Properties state, int unit) {
+        String value = state.getProperty(LEASE + unit);
+        if (value == null) {
+            return null;
+        }
+        int split = value.lastIndexOf(' ');
+        return new Lease(unit, value.substring(0, split), Long.parseLong(value.substring(split + 1)));
+    }
+
+    private static Lease put(Properties state, Lease lease) {
+        state.setProperty(LEASE + lease.getUnit(), lease.getOwner() + ' ' + lease.getExpiresAt());
+        return lease;
+    }
+
+    private <R> R update(Function<Properties, R> action) {
+        Object monitor = MONITORS.computeIfAbsent(lockFile, p -> new Object());
+        synchronized (monitor) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Properties state = load();
+                Properties before = (Properties) state.clone();
+                R result = action.apply(state);
+                if (!state.equals(before)) {
+                    save(state);
+                }
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException("读写租约文件失败：" + directory, e);
+            }
+        }
+    }
+
+    private Properties load() throws IOException {
+        Properties state = new Properties();
+        if (Files.exists(stateFile)) {
+            try (InputStream in = Files.newInputStream(stateFile)) {
+                state.load(in);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 先写入临时文件再原子重命名，进程在任意时刻退出都不会留下不完整的租约文件
+     */
+    private void save(Properties state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        state.store(bytes, "iterapager leases");
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            out.write(bytes.toByteArray());
+            channel.force(true);
+        }
+        Files.move(temp, stateFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * 逐页展开为逐个元素的迭代器.
+ * <p>
+ * {@link RandomAccess}的{@link List}按下标遍历，其他集合使用集合自身的迭代器。页内遍历不创建任何对象，
+ * 只在换页时取下一页。源迭代器是{@link CloseableIterator}时，{@link #close()}会关闭源迭代器。
+ *
+ * @param <T> 列表元素类型
+ * @param <D> 输出元素类型
+ * @author lipei
+ */
+final class FlatIterator<T, D> implements CloseableIterator<D> {
+    private final Iterator<? extends Collection<T>> pages;
+    @Nullable
+    private final Function<? super T, ? extends D> mapper;
+
+    /**
+     * 当前页按下标遍历时的列表
+     */
+    @Nullable
+    private List<T> list;
+    private int index;
+    private int size;
+    /**
+     * 当前页不支持随机访问时的迭代器
+     */
+    @Nullable
+    private Iterator<T> elements;
+    /**
+     * 上一个元素所在的页，用于{@link #remove()}
+     */
+    @Nullable
+    private List<T> removeList;
+    private int removeIndex;
+    @Nullable
+    private Iterator<T> removeIterator;
+
+    /**
+     * @param mapper 元素转换函数，{@code null}表示不转换，此时{@code D}必须与{@code T}相同
+     */
+    FlatIterator(Iterator<? extends Collection<T>> pages, @Nullable Function<? super T, ? extends D> mapper) {
+        this.pages = pages;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (list != null) {
+                if (index < size) {
+                    return true;
+                }
+                list = null;
+            } else if (elements != null) {
+                if (elements.hasNext()) {
+                    return true;
+                }
+                elements = null;
+            }
+            if (!pages.hasNext()) {
+                return false;
+            }
+            Collection<T> page = pages.next();
+            if (page instanceof RandomAccess && page instanceof List) {
+                list = (List<T>) page;
+                index = 0;
+                size = list.size();
+            } else {
+                elements = page.iterator();
+            }
+        }
+    }
+
+    @Override
+    public D next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T element;
+        if (list != null) {
+            removeList = list;
+            removeIndex = index;
+            removeIterator = null;
+            element = list.get(index++);
+        } else {
+            removeIterator = elements;
+            removeList = null;
+            element = elements.next();
+        }
+        return map(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private D map(T element) {
+        return mapper == null ? (D) element : mapper.apply(element);
+    }
+
+    @Override
+    public void remove() {
+        if (removeList != null) {
+            removeList.remove(removeIndex);
+            if (removeList == list) {
+                index--;
+                size--;
+            }
+            removeList = null;
+        } else if (removeIterator != null) {
+            removeIterator.remove();
+            removeIterator = null;
+        } else {
+            throw new IllegalStateException("未调用next()或已删除");
+        }
+    }
+
+    @Override
+    public void close() {
+        list = null;
+        elements = null;
+        if (pages instanceof CloseableIterator) {
+            ((CloseableIterator<?>) pages).close();
+        }
+    }
+}
@@ -1,25 +1,31 @@
 package io.github.terrason.iterapager;
 
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 分页处理工具
  *
  * @param <T> 列表元素类型
  */
-public class IteraPager<T> extends ModelPager<Collection<T>> {
-    private IteraPager(int batchSize, PageProducer<? extends Collection<T>> producer) {
-        super(batchSize, producer);
+public class IteraPager<T> extends ModelPager<Collection<T>> implements PagedIterable<T> {
+    private IteraPager(int batchSize, PageProducer<? extends Collection<T>> producer, boolean ordered) {
+        super(batchSize, producer, ordered);
     }
 
     /**
@@ -29,7 +35,7 @@ public class IteraPager<T> extends ModelPager<Collection<T>> {
      * @param producer  数据源产生器. 一次只能产生batchSize对应的数据量，少了将停止循环，多了会产生bug。
      */
     public IteraPager(int batchSize, Function<Pageable, ? extends Collection<T>> producer) {
-        super(batchSize, DelegatedPageProducer.ofCollection((p, ignore) -> producer.apply(p)));
+        super(batchSize, DelegatedPageProducer.ofCollection((p, ignore) -> producer.apply(p)), false);
     }
 
     /**
@@ -43,7 +49,34 @@ public class IteraPager<T> extends ModelPager<Collection<T>> {
      * @return 按顺序查询的分批数据
      */
     public static <E> IteraPager<E> ofOrdered(int batchSize, DataProducer<E, ? extends Collection<E>> producer) {
-        return new IteraPager<>(batchSize, DelegatedPageProducer.ofCollection(producer));
+        return new IteraPager<>(batchSize, DelegatedPageProducer.ofCollection(producer), true);
+    }
+
+    /**
+     * 按复合排序键查询的分批数据
+     *
+     * @param batchSize 批处理大小
+     * @param key       排序键
+     * @param producer  数据源产生器. 按{@link SeekKey#orderBy()}排序，查询排在游标之后的数据，第一次查询时游标为{@code null}。
+     * @see SeekKey
+     */
+    public static <T> IteraPager<T> ofSeek(int batchSize, SeekKey<T> key, DataProducer<SeekKey.Cursor, ? extends Collection<T>> producer) {
+        return ofSeek(batchSize, key, null, producer);
+    }
+
+    /**
+     * 从指定游标之后开始，按复合排序键查询的分批数据
+     *
+     * @param batchSize 批处理大小
+     * @param key       排序键
+     * @param start     第一次查询时的游标，如{@link SeekKey#decode(String)}还原的游标，{@code null}表示从头开始
+     * @param producer  数据源产生器. 按{@link SeekKey#orderBy()}排序，查询排在游标之后的数据。
+     */
+    public static <T> IteraPager<T> ofSeek(int batchSize,
+            SeekKey<T> key,
+            @Nullable SeekKey.Cursor start,
+            DataProducer<SeekKey.Cursor, ? extends Collection<T>> producer) {
+        return ofOrdered(batchSize, (pageable, last) -> producer.next(pageable, last == null ? start : key.cursorOf(last)));
     }
 
     public static <D, T> IteraPager<T> of(int batchSize,
@@ -56,7 +89,7 @@ public class IteraPager<T> extends ModelPager<Collection<T>> {
                 delegatedProducer,
                 elementsMapper,
                 sizeMapper,
-                totalLimitMapper));
+                totalLimitMapper), false);
     }
 
     public static <D, T> IteraPager<T> ofOrdered(int batchSize,
@@ -65,14 +98,14 @@ public class IteraPager<T> extends ModelPager<Collection<T>> {
             ToIntFunction<D> sizeMapper,
             @Nullable ToLongFunction<D> totalLimitMapper) {
         DataProducer<Collection<T>, D> delegatedProducer = (pageable, lastElements) -> {
-            T lastElement = lastElements == null || lastElements.isEmpty() ? null : Iterables.getLast(lastElements);
+            T lastElement = lastElements == null || lastElements.isEmpty() ? null : DelegatedPageProducer.lastElement(lastElements);
             return producer.next(pageable, lastElement);
         };
         return new IteraPager<>(batchSize, new DelegatedPageProducer<>(
                 delegatedProducer,
                 elementsMapper,
                 sizeMapper,
-                totalLimitMapper));
+                totalLimitMapper), true);
     }
 
     /**
@@ -95,23 +128,192 @@ public class IteraPager<T> extends ModelPager<Collection<T>> {
         return this;
     }
 
-    public Iterator<T> concat() {
-        return Iterators.concat(
-                Iterators.transform(
-                        iterator(),
-                        Collection::iterator));
+    @Override
+    public IteraPager<T> prefetch(int depth, Executor executor) {
+        super.prefetch(depth, executor);
+        return this;
     }
 
-    public <D> Iterator<D> concat(Function<? super T, ? extends D> mapper) {
-        Iterator<T> fromIter = concat();
-        return Iterators.transform(fromIter, t -> mapper.apply(t));
+    @Override
+    public IteraPager<T> prefetch(int depth) {
+        super.prefetch(depth);
+        return this;
     }
 
-    public Iterable<T> flat() {
-        return this::concat;
+    @Override
+    public IteraPager<T> fanOut(int concurrency) {
+        super.fanOut(concurrency);
+        return this;
     }
 
-    public <D> Iterable<D> flat(Function<T, D> mapper) {
-        return Iterables.transform(flat(), t -> mapper.apply(t));
+    @Override
+    public IteraPager<T> adaptiveBatchSize(@Nullable AdaptiveBatchSize adaptive) {
+        super.adaptiveBatchSize(adaptive);
+        return this;
+    }
+
+    @Override
+    public IteraPager<T> lookahead(BiFunction<? super Collection<T>, Integer, ? extends Collection<T>> truncator) {
+        super.lookahead(truncator);
+        return this;
+    }
+
+    /**
+     * 开启多取一条模式，生产者必须按{@link Pageable#getLimit()}查询.
+     *
+     * @see ModelPager#lookahead(BiFunction)
+     */
+    public IteraPager<T> lookahead() {
+        return lookahead(IteraPager::truncate);
+    }
+
+    private static <T> Collection<T> truncate(Collection<T> elements, int size) {
+        if (elements instanceof List) {
+            return ((List<T>) elements).subList(0, size);
+        }
+        List<T> truncated = new ArrayList<>(size);
+        Iterators.addAll(truncated, Iterators.limit(elements.iterator(), size));
+        return truncated;
+    }
+
+    @Override
+    public IteraPager<T> listener(@Nullable PagerListener listener) {
+        super.listener(listener);
+        return this;
+    }
+
+    @Override
+    public IteraPager<T> checkpoint(CheckpointFile file) {
+        super.checkpoint(file);
+        return this;
+    }
+
+    /**
+     * 迭代时定期保存断点.
+     *
+     * @param file  断点文件及保存间隔
+     * @param codec 有序分页的游标编解码，如{@link CheckpointCodec#ofLastElement(Function, Function)}
+     * @see ModelPager#checkpoint(CheckpointFile, CheckpointCodec)
+     */
+    @Override
+    public IteraPager<T> checkpoint(CheckpointFile file, @Nullable CheckpointCodec<Collection<T>> codec) {
+        super.checkpoint(file, codec);
+        return this;
+    }
+
+    @Override
+    public IteraPager<T> resumeFrom(Checkpoint checkpoint) {
+        return (IteraPager<T>) super.resumeFrom(checkpoint);
+    }
+
+    @Override
+    public IteraPager<T> cached(PageCache cache, Object queryId) {
+        return cached(cache, queryId, t -> t);
+    }
+
+    /**
+     * 返回使用缓存的分页，原分页不受影响.
+     *
+     * @param cache        共享的分页缓存
+     * @param queryId      查询标识，相同标识的分页必须返回相同的数据
+     * @param keyExtractor 有序分页从上一页最后一个元素提取游标键，如ID
+     * @see ModelPager#cached(PageCache, Object)
+     */
+    public IteraPager<T> cached(PageCache cache, Object queryId, Function<? super T, ?> keyExtractor) {
+        Function<Collection<T>, Object> lastKeyMapper = elements -> elements.isEmpty() ? null : keyExtractor.apply(DelegatedPageProducer.lastElement(elements));
+        return copyWith(wrapWithCache(cache, queryId, lastKeyMapper));
+    }
+
+    @Override
+    public IteraPager<T> retry(RetryPolicy policy) {
+        return (IteraPager<T>) super.retry(policy);
+    }
+
+    @Override
+    public IteraPager<T> throttle(Throttle throttle) {
+        return (IteraPager<T>) super.throttle(throttle);
+    }
+
+    /**
+     * 有序分页的生产者只使用上一页的最后一个元素，续接点只保存该元素
+     */
+    @Override
+    protected Collection<T> continuationData(Collection<T> lastData) {
+        return lastData.isEmpty() ? lastData : Collections.singletonList(DelegatedPageProducer.lastElement(lastData));
+    }
+
+    @Override
+    protected IteraPager<T> copyWith(PageProducer<Collection<T>> producer) {
+        return copySettingsTo(new IteraPager<>(batchSize, producer, ordered));
+    }
+
+    /**
+     * 跳过前n条数据的视图，按偏移量分页时从第n条所在的页开始获取.
+     *
+     * @see SlicedPager
+     */
+    public SlicedPager<T> skip(int n) {
+        return new SlicedPager<>(this).skip(n);
+    }
+
+    /**
+     * 最多返回n条数据的视图，最后一次获取只请求剩余的条数.
+     *
+     * @see SlicedPager
+     */
+    public SlicedPager<T> limit(long n) {
+        return new SlicedPager<>(this).limit(n);
+    }
+
+    /**
+     * 遇到第一个不满足条件的元素时结束的视图，不再获取后续页.
+     *
+     * @see SlicedPager
+     */
+    public SlicedPager<T> whileTrue(Predicate<? super T> predicate) {
+        return new SlicedPager<>(this).whileTrue(predicate);
+    }
+
+    /**
+     * 有序分页从指定元素之后开始的视图.
+     *
+     * @see SlicedPager#after(Object)
+     */
+    public SlicedPager<T> after(T element) {
+        return new SlicedPager<>(this).after(element);
+    }
+
+    @Override
+    public IteraPager<T> fanOut(int concurrency, Executor executor) {
+        super.fanOut(concurrency, executor);
+        return this;
+    }
+
+    /**
+     * 逐个元素的{@link Spliterator}.
+     * <p>
+     * 每页数据只由分页参数决定时（如{@link IteraPager#of}），按页码区间拆分，生产者返回总数后拆分出的区间可得知准确大小；
+     * 有序分页、动态调整每页大小或设置了断点（{@link #checkpoint}、{@link #resumeFrom}）时，
+     * 按{@link #iterator()}逐页获取，每次拆分交出一整页数据。
+     * <p>
+     * 按页码区间拆分时由流的线程直接调用生产者：不使用{@link #prefetch}、{@link #fanOut}的线程池，
+     * 监听器只收到获取开始、结束和失败的回调。
+     */
+    public Spliterator<T> flatSpliterator() {
+        if (isOffsetIndependent() && adaptiveBatchSize == null && checkpointFile == null && resumeCheckpoint == null) {
+            return new PageSpliterator.Ranged<>(this);
+        }
+        return new PageSpliterator.Sequential<>(iterator());
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(flatSpliterator(), false);
+    }
+
+    /**
+     * 并行流. 按页码区间拆分时各页由fork-join线程并发获取。
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(flatSpliterator(), true);
     }
 }
@@ -0,0 +1,29 @@
+package io.github.terrason.iterapager;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 工作单元的租约. 持有者在到期前独占该单元，到期未续租时其他进程可以重新领取。
+ *
+ * @author lipei
+ * @see LeaseStore
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public final class Lease {
+    /**
+     * 工作单元序号，从0开始
+     */
+    private final int unit;
+    /**
+     * 持有者
+     */
+    private final String owner;
+    /**
+     * 到期时间，毫秒时间戳
+     */
+    private final long expiresAt;
+}
@@ -0,0 +1,47 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * 多个进程之间分配工作单元的租约存储，一个存储对应一个任务.
+ * <p>
+ * 工作单元按序号领取，完成后不再分配；持有者崩溃后租约到期，其他进程可以重新领取。
+ * 实现需要保证多个进程同时调用时的互斥，如{@link FileLeaseStore}。
+ *
+ * @author lipei
+ * @see DistributedPager
+ */
+public interface LeaseStore {
+
+    /**
+     * 领取序号最小的未完成、未被占用（或租约已到期）的工作单元.
+     *
+     * @param units     工作单元数，不确定时为{@link Integer#MAX_VALUE}，由{@link #complete(Lease, boolean)}标记最后一个单元
+     * @param owner     持有者
+     * @param leaseTime 租约时长
+     * @return {@code null}-没有可领取的工作单元
+     */
+    @Nullable
+    Lease claim(int units, String owner, Duration leaseTime);
+
+    /**
+     * 续租.
+     *
+     * @return 新的租约；{@code null}-租约已被其他持有者领取或单元已完成，应放弃该单元
+     */
+    @Nullable
+    Lease renew(Lease lease, Duration leaseTime);
+
+    /**
+     * 标记工作单元已完成. 租约已被其他持有者领取时忽略，由新的持有者完成该单元。
+     *
+     * @param last 是否为最后一个有数据的单元，之后的单元不再分配
+     */
+    void complete(Lease lease, boolean last);
+
+    /**
+     * 放弃租约，其他持有者可以立即领取该单元
+     */
+    void release(Lease lease);
+}
@@ -0,0 +1,213 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 以{@code long[]}为每页数据的分页，适用于只扫描ID等场景，元素不装箱.
+ * <p>
+ * 生产者返回的数组长度即本页数据量，判断到达末尾的规则与{@link IteraPager}相同。
+ *
+ * @author lipei
+ */
+public class LongPager extends ModelPager<long[]> {
+    private static final long[] EMPTY = new long[0];
+
+    private LongPager(int batchSize, PageProducer<long[]> producer, boolean ordered) {
+        super(batchSize, producer, ordered);
+    }
+
+    /**
+     * 分批次执行任务.
+     *
+     * @param batchSize 批处理大小
+     * @param producer  数据源产生器. 一次只能产生batchSize对应的数据量，少了将停止循环，多了会产生bug。
+     */
+    public LongPager(int batchSize, Function<Pageable, long[]> producer) {
+        this(batchSize, (pageable, lastData) -> page(producer.apply(pageable)), false);
+    }
+
+    /**
+     * 按顺序查询的分批数据.
+     *
+     * @param batchSize 批处理大小
+     * @param initial   第一次查询时的游标，如{@code 0}或{@link Long#MIN_VALUE}
+     * @param producer  数据源产生器. 一次只能产生batchSize对应的数据量，少了将停止循环，多了会产生bug。
+     *                  第二个参数为上一批数据的最后一个元素，第一次为initial，例如{@code where id > ? order by id}。
+     */
+    public static LongPager ofOrdered(int batchSize, long initial, KeysetProducer producer) {
+        return new LongPager(batchSize, (pageable, lastData) -> page(producer.next(pageable,
+                lastData == null || lastData.length == 0 ? initial : lastData[lastData.length - 1])), true);
+    }
+
+    private static PageProducer.Elem<long[]> page(@Nullable long[] data) {
+        long[] page = data == null ? EMPTY : data;
+        return PageElements.of(page, page.length);
+    }
+
+    @Override
+    public LongPager timesLimit(int limitTimes) {
+        this.timesLimit = limitTimes;
+        return this;
+    }
+
+    @Override
+    public LongPager prefetch(int depth, Executor executor) {
+        super.prefetch(depth, executor);
+        return this;
+    }
+
+    @Override
+    public LongPager prefetch(int depth) {
+        super.prefetch(depth);
+        return this;
+    }
+
+    @Override
+    public LongPager fanOut(int concurrency, Executor executor) {
+        super.fanOut(concurrency, executor);
+        return this;
+    }
+
+    @Override
+    public LongPager fanOut(int concurrency) {
+        super.fanOut(concurrency);
+        return this;
+    }
+
+    @Override
+    public LongPager adaptiveBatchSize(@Nullable AdaptiveBatchSize adaptive) {
+        super.adaptiveBatchSize(adaptive);
+        return this;
+    }
+
+    @Override
+    public LongPager lookahead(BiFunction<? super long[], Integer, ? extends long[]> truncator) {
+        super.lookahead(truncator);
+        return this;
+    }
+
+    /**
+     * 开启多取一条模式，生产者必须按{@link Pageable#getLimit()}查询.
+     *
+     * @see ModelPager#lookahead(BiFunction)
+     */
+    public LongPager lookahead() {
+        return lookahead(Arrays::copyOf);
+    }
+
+    @Override
+    public LongPager listener(@Nullable PagerListener listener) {
+        super.listener(listener);
+        return this;
+    }
+
+    @Override
+    public LongPager checkpoint(CheckpointFile file) {
+        super.checkpoint(file);
+        return this;
+    }
+
+    @Override
+    public LongPager checkpoint(CheckpointFile file, @Nullable CheckpointCodec<long[]> codec) {
+        super.checkpoint(file, codec);
+        return this;
+    }
+
+    @Override
+    public LongPager resumeFrom(Checkpoint checkpoint) {
+        return (LongPager) super.resumeFrom(checkpoint);
+    }
+
+    /**
+     * 返回使用缓存的分页，原分页不受影响. 有序分页以上一页最后一个元素作为游标键。
+     *
+     * @see ModelPager#cached(PageCache, Object)
+     */
+    @Override
+    public LongPager cached(PageCache cache, Object queryId) {
+        Function<long[], Object> lastKeyMapper = page -> page.length == 0 ? null : page[page.length - 1];
+        return copyWith(wrapWithCache(cache, queryId, lastKeyMapper));
+    }
+
+    @Override
+    public LongPager retry(RetryPolicy policy) {
+        return (LongPager) super.retry(policy);
+    }
+
+    @Override
+    public LongPager throttle(Throttle throttle) {
+        return (LongPager) super.throttle(throttle);
+    }
+
+    @Override
+    protected LongPager copyWith(PageProducer<long[]> producer) {
+        return copySettingsTo(new LongPager(batchSize, producer, ordered));
+    }
+
+    /**
+     * 逐个元素迭代
+     */
+    public PrimitiveIterator.OfLong concat() {
+        return new FlatLongIterator(iterator());
+    }
+
+    public LongStream stream() {
+        return StreamSupport.longStream(
+                Spliterators.spliteratorUnknownSize(concat(), Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * 有序查询的数据源产生器
+     */
+    @FunctionalInterface
+    public interface KeysetProducer {
+        /**
+         * @param pagination 分页参数
+         * @param lastKey    上一批数据的最后一个元素，第一次为初始游标
+         * @return 本页数据，{@code null}视为空页
+         */
+        long[] next(Pageable pagination, long lastKey);
+    }
+
+    private static final class FlatLongIterator implements PrimitiveIterator.OfLong {
+        private final Iterator<long[]> pages;
+        private long[] page = EMPTY;
+        private int index;
+
+        FlatLongIterator(Iterator<long[]> pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index >= page.length) {
+                if (!pages.hasNext()) {
+                    return false;
+                }
+                page = pages.next();
+                index = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page[index++];
+        }
+    }
+}
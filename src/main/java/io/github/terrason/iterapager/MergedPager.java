@@ -0,0 +1,228 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * 多个有序分页（如分库的{@link IteraPager#ofOrdered}）按排序合并为一个有序分页.
+ * <p>
+ * 以小顶堆做多路归并，每个分片只保留当前元素，合并结果按batchSize重新分页。
+ * 开启预取时每个分片在后台线程中提前获取若干页，慢的分片不会阻塞其他分片的获取。
+ *
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+public class MergedPager<T> implements PagedIterable<T> {
+    protected final int batchSize;
+    protected final Comparator<? super T> comparator;
+    protected final List<PagedIterable<T>> shards;
+    /**
+     * 每个分片预取的页数，{@code 0}表示不预取
+     */
+    protected int bufferPages;
+    @Nullable
+    protected Executor executor;
+
+    protected MergedPager(int batchSize, Comparator<? super T> comparator, List<? extends PagedIterable<T>> shards) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("批处理大小不能小于1：" + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.comparator = comparator;
+        this.shards = ImmutableList.copyOf(shards);
+    }
+
+    /**
+     * 合并有序分页.
+     *
+     * @param batchSize  合并后每页的大小
+     * @param comparator 各分片共同的排序
+     * @param shards     按comparator排序的分片
+     */
+    public static <T> MergedPager<T> of(int batchSize, Comparator<? super T> comparator, List<? extends PagedIterable<T>> shards) {
+        return new MergedPager<>(batchSize, comparator, shards);
+    }
+
+    /**
+     * 每个分片在后台线程中提前获取数据.
+     *
+     * @param bufferPages 每个分片缓冲的页数
+     * @param executor    执行获取任务的线程池，每个分片占用一个线程
+     */
+    public MergedPager<T> prefetch(int bufferPages, Executor executor) {
+        if (bufferPages < 1) {
+            throw new IllegalArgumentException("缓冲页数不能小于1：" + bufferPages);
+        }
+        this.bufferPages = bufferPages;
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 每个分片在{@link PagerExecutors#perFetch() 默认线程}（Java 21 及以上为虚拟线程）中提前获取数据.
+     *
+     * @param bufferPages 每个分片缓冲的页数
+     */
+    public MergedPager<T> prefetch(int bufferPages) {
+        return prefetch(bufferPages, PagerExecutors.perFetch());
+    }
+
+    /**
+     * 合并后按batchSize重新分页. 提前结束迭代时请调用{@link CloseableIterator#close()}。
+     */
+    @Override
+    public CloseableIterator<Collection<T>> iterator() {
+        return new Batches(new Merge());
+    }
+
+    /**
+     * 逐个元素迭代合并结果，不重新分页. 提前结束迭代时请调用{@link CloseableIterator#close()}。
+     */
+    @Override
+    public CloseableIterator<T> closeableConcat() {
+        return new Merge();
+    }
+
+    private Iterator<Collection<T>> open(PagedIterable<T> shard, List<AutoCloseable> resources) {
+        if (bufferPages == 0 || executor == null) {
+            Iterator<Collection<T>> pages = shard.iterator();
+            if (pages instanceof AutoCloseable) {
+                resources.add((AutoCloseable) pages);
+            }
+            return pages;
+        }
+        PageChannel<Collection<T>> channel = new PageChannel<>(bufferPages);
+        resources.add(channel::close);
+        executor.execute(() -> {
+            Iterator<Collection<T>> pages = shard.iterator();
+            try {
+                while (pages.hasNext()) {
+                    if (!channel.put(pages.next())) {
+                        return;
+                    }
+                }
+                channel.complete();
+            } catch (Throwable e) {
+                channel.fail(e);
+            } finally {
+                if (pages instanceof CloseableIterator) {
+                    ((CloseableIterator<?>) pages).close();
+                }
+            }
+        });
+        return new AbstractIterator<Collection<T>>() {
+            @Override
+            protected Collection<T> computeNext() {
+                Collection<T> page = channel.take();
+                return page == null ? endOfData() : page;
+            }
+        };
+    }
+
+    /**
+     * 分片当前的元素
+     */
+    private final class Head {
+        private final int shard;
+        private final Iterator<T> elements;
+        private T value;
+
+        Head(int shard, Iterator<T> elements) {
+            this.shard = shard;
+            this.elements = elements;
+        }
+    }
+
+    private final class Merge extends AbstractIterator<T> implements CloseableIterator<T> {
+        private final List<AutoCloseable> resources = new ArrayList<>();
+        @Nullable
+        private PriorityQueue<Head> heap;
+
+        private PriorityQueue<Head> start() {
+            //值相同时按分片顺序输出，保证结果稳定
+            PriorityQueue<Head> queue = new PriorityQueue<>(Math.max(1, shards.size()),
+                    Comparator.<Head, T>comparing(head -> head.value, comparator).thenComparingInt(head -> head.shard));
+            heap = queue;
+            for (int i = 0; i < shards.size(); i++) {
+                Head head = new Head(i, new FlatIterator<>(open(shards.get(i), resources), null));
+                if (head.elements.hasNext()) {
+                    head.value = head.elements.next();
+                    queue.add(head);
+                }
+            }
+            return queue;
+        }
+
+        @Override
+        protected T computeNext() {
+            try {
+                PriorityQueue<Head> queue = heap == null ? start() : heap;
+                Head head = queue.poll();
+                if (head == null) {
+                    close();
+                    return endOfData();
+                }
+                T value = head.value;
+                if (head.elements.hasNext()) {
+                    T next = head.elements.next();
+                    if (comparator.compare(next, value) < 0) {
+                        throw new IllegalStateException(String.format("第%d个分片的数据未按顺序排列：%s 在 %s 之后",
+                                head.shard + 1, next, value));
+                    }
+                    head.value = next;
+                    queue.add(head);
+                }
+                return value;
+            } catch (RuntimeException | Error e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            for (AutoCloseable resource : resources) {
+                try {
+                    resource.close();
+                } catch (Exception ignore) {
+                    //关闭失败不影响其他分片
+                }
+            }
+            resources.clear();
+        }
+    }
+
+    private final class Batches extends AbstractIterator<Collection<T>> implements CloseableIterator<Collection<T>> {
+        private final Merge merge;
+
+        Batches(Merge merge) {
+            this.merge = merge;
+        }
+
+        @Override
+        protected Collection<T> computeNext() {
+            if (!merge.hasNext()) {
+                return endOfData();
+            }
+            List<T> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && merge.hasNext()) {
+                batch.add(merge.next());
+            }
+            return batch;
+        }
+
+        @Override
+        public void close() {
+            merge.close();
+        }
+    }
+}
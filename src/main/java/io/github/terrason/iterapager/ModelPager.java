@@ -5,7 +5,14 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 import java.util.function.UnaryOperator;
@@ -19,7 +26,39 @@ public class ModelPager<M> implements Iterable<M> {
 
     protected final int batchSize;
     protected final PageProducer<M> producer;
+    /**
+     * 生产者是否依赖上一页数据（有序分页），依赖时每页只能在上一页获取完成后才能获取.
+     */
+    protected final boolean ordered;
     protected int timesLimit = 10000;
+    protected int prefetchDepth = 0;
+    @Nullable
+    protected Executor prefetchExecutor;
+    /**
+     * 是否只在得知总数后才并发获取剩余页，不做超出总数的预取
+     */
+    protected boolean fanOut;
+    /**
+     * 动态调整每页大小，{@code null}表示每页固定为batchSize
+     */
+    @Nullable
+    protected AdaptiveBatchSize adaptiveBatchSize;
+    @Nullable
+    protected CheckpointFile checkpointFile;
+    @Nullable
+    protected CheckpointCodec<M> checkpointCodec;
+    /**
+     * 迭代时从该断点继续
+     */
+    @Nullable
+    protected Checkpoint resumeCheckpoint;
+    @Nullable
+    protected PagerListener listener;
+    /**
+     * 多取一条判断末尾时截取前n条数据的函数，{@code null}表示不多取
+     */
+    @Nullable
+    protected BiFunction<? super M, Integer, ? extends M> lookahead;
 
     /**
      * 分批次执行任务.
@@ -27,11 +66,23 @@ public class ModelPager<M> implements Iterable<M> {
      * @param batchSize 批处理大小
      * @param producer  数据源产生器. 一次只能产生batchSize对应的数据量，少了将停止循环，多了会产生bug。
      */
-    @SuppressWarnings("unchecked")
     public ModelPager(int batchSize, PageProducer<? extends M> producer) {
+        this(batchSize, producer, true);
+    }
+
+    /**
+     * 分批次执行任务.
+     *
+     * @param batchSize 批处理大小
+     * @param producer  数据源产生器. 一次只能产生batchSize对应的数据量，少了将停止循环，多了会产生bug。
+     * @param ordered   生产者是否依赖上一页数据. {@code false}表示每页数据只由分页参数决定，可以并发获取。
+     */
+    @SuppressWarnings("unchecked")
+    protected ModelPager(int batchSize, PageProducer<? extends M> producer, boolean ordered) {
         this.batchSize = batchSize;
         //noinspection rawtypes
         this.producer = (PageProducer<M>) producer;
+        this.ordered = ordered;
     }
 
 
@@ -58,8 +109,360 @@ public class ModelPager<M> implements Iterable<M> {
         return this;
     }
 
+    /**
+     * 开启预取模式：消费者处理第N页数据时，后台提前获取第N+1..N+depth页数据.
+     * <p>
+     * 有序分页每次获取都依赖上一页的最后一个元素，只能提前获取1页。
+     * 生产者抛出的异常会在迭代到对应页时原样抛给消费者。
+     *
+     * @param depth    预取页数，{@code 0}表示关闭预取
+     * @param executor 执行预取任务的线程池
+     */
+    public ModelPager<M> prefetch(int depth, Executor executor) {
+        return prefetch(depth, executor, false);
+    }
+
+    /**
+     * 开启预取模式，使用{@link PagerExecutors#perFetch() 默认线程}（Java 21 及以上为虚拟线程）执行预取任务.
+     *
+     * @param depth 预取页数，{@code 0}表示关闭预取
+     * @see #prefetch(int, Executor)
+     */
+    public ModelPager<M> prefetch(int depth) {
+        return prefetch(depth, PagerExecutors.perFetch());
+    }
+
+    private ModelPager<M> prefetch(int depth, Executor executor, boolean fanOut) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("预取页数不能小于0：" + depth);
+        }
+        this.prefetchDepth = depth;
+        this.prefetchExecutor = executor;
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /**
+     * 开启并发获取模式：第一页返回{@link PageProducer.Elem#total() 总数}后，剩余页按页码最多同时发起concurrency个查询，
+     * 迭代时仍按页码顺序返回.
+     * <p>
+     * 只适用于每页数据只由分页参数决定的生产者（如{@link IteraPager#of}），有序分页不支持。
+     * 生产者未返回总数时，每次只提前获取1页。
+     *
+     * @param concurrency 最大并发查询数
+     * @param executor    执行查询任务的线程池
+     */
+    public ModelPager<M> fanOut(int concurrency, Executor executor) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("并发数不能小于1：" + concurrency);
+        }
+        if (!isOffsetIndependent()) {
+            throw new UnsupportedOperationException("有序分页每页依赖上一页数据，不支持并发获取");
+        }
+        return prefetch(concurrency, executor, true);
+    }
+
+    /**
+     * 开启并发获取模式，使用{@link PagerExecutors#perFetch() 默认线程}（Java 21 及以上为虚拟线程）执行查询任务.
+     *
+     * @param concurrency 最大并发查询数
+     * @see #fanOut(int, Executor)
+     */
+    public ModelPager<M> fanOut(int concurrency) {
+        return fanOut(concurrency, PagerExecutors.perFetch());
+    }
+
+    /**
+     * 根据生产者耗时动态调整每页大小，第一页大小为batchSize（限制在范围内）.
+     * <p>
+     * 每页大小不固定，按偏移量分页的生产者必须使用{@link Pageable#getOffset()}和{@link Pageable#getLimit()}，
+     * 不能用页码计算偏移量；有序分页不受影响。仍以不满一页作为到达末尾的判断。
+     * 只对逐页迭代生效，不能与预取、并发获取同时使用。
+     *
+     * @param adaptive 调整策略，{@code null}表示关闭
+     */
+    public ModelPager<M> adaptiveBatchSize(@Nullable AdaptiveBatchSize adaptive) {
+        if (adaptive != null && producer instanceof ModelPager.PageableHoldProducer) {
+            throw new UnsupportedOperationException("外部传入的分页参数不支持动态调整每页大小");
+        }
+        this.adaptiveBatchSize = adaptive;
+        return this;
+    }
+
+    /**
+     * 开启多取一条模式：每次向生产者请求{@code limit + 1}条，只返回前limit条，多出的一条表示还有数据.
+     * <p>
+     * 数据总数恰好是每页大小的整数倍时，不再需要最后一次返回空页的查询。
+     * 生产者必须按{@link Pageable#getLimit()}查询，不能使用固定的batchSize；
+     * 有序分页以返回的最后一个元素（而不是多出的一条）作为下一页的游标。
+     *
+     * @param truncator 截取前n条数据，如{@code (list, n) -> list.subList(0, n)}
+     */
+    public ModelPager<M> lookahead(BiFunction<? super M, Integer, ? extends M> truncator) {
+        if (producer instanceof ModelPager.PageableHoldProducer) {
+            throw new UnsupportedOperationException("外部传入的分页参数不支持多取一条判断末尾");
+        }
+        this.lookahead = truncator;
+        return this;
+    }
+
+    /**
+     * 设置监听器，采集每页耗时、数据量等指标.
+     *
+     * @param listener 监听器，如{@link PagerMetrics}，{@code null}表示不采集
+     */
+    public ModelPager<M> listener(@Nullable PagerListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 迭代时定期保存断点，数据全部处理完成后保存结束标记.
+     * <p>
+     * 消费者请求下一页时，认为上一页已处理完成。
+     *
+     * @param file 断点文件及保存间隔
+     * @see #resumeFrom(Checkpoint)
+     */
+    public ModelPager<M> checkpoint(CheckpointFile file) {
+        return checkpoint(file, null);
+    }
+
+    /**
+     * 迭代时定期保存断点，数据全部处理完成后保存结束标记.
+     *
+     * @param file  断点文件及保存间隔
+     * @param codec 有序分页最后一页数据的编解码，按偏移量分页时可为{@code null}
+     * @see #resumeFrom(Checkpoint)
+     */
+    public ModelPager<M> checkpoint(CheckpointFile file, @Nullable CheckpointCodec<M> codec) {
+        this.checkpointFile = file;
+        this.checkpointCodec = codec;
+        return this;
+    }
+
+    /**
+     * 返回从断点继续的分页，已处理完成的页不再获取，原分页不受影响.
+     * <p>
+     * 有序分页需要先通过{@link #checkpoint(CheckpointFile, CheckpointCodec)}设置编解码，以便还原上一页的游标。
+     *
+     * @param checkpoint 断点，如{@link CheckpointFile#load()}的结果
+     */
+    public ModelPager<M> resumeFrom(Checkpoint checkpoint) {
+        if (producer instanceof ModelPager.PageableHoldProducer) {
+            throw new UnsupportedOperationException("外部传入的分页参数不支持从断点继续");
+        }
+        if (ordered && !checkpoint.isFinished() && checkpoint.getPages() > 0
+                && (checkpoint.getLastKey() == null || checkpointCodec == null)) {
+            throw new IllegalStateException("有序分页从断点继续需要游标键及其编解码：" + checkpoint);
+        }
+        ModelPager<M> copy = copyWith(producer);
+        copy.resumeCheckpoint = checkpoint;
+        return copy;
+    }
+
+    /**
+     * 返回使用缓存的分页，原分页不受影响. 重复迭代或其他使用相同查询标识的分页命中缓存时不再调用生产者。
+     * <p>
+     * 有序分页以上一页数据本身作为游标键，应保证其{@code equals}和{@code hashCode}。
+     *
+     * @param cache   共享的分页缓存
+     * @param queryId 查询标识，相同标识的分页必须返回相同的数据
+     */
+    public ModelPager<M> cached(PageCache cache, Object queryId) {
+        return copyWith(wrapWithCache(cache, queryId, m -> m));
+    }
+
+    /**
+     * 返回失败重试、超时、对冲的分页，原分页不受影响.
+     *
+     * @param policy 重试策略，可被多个分页共享
+     */
+    public ModelPager<M> retry(RetryPolicy policy) {
+        return copyWrapped(policy::wrap);
+    }
+
+    /**
+     * 返回限速的分页，原分页不受影响. 预取、并发获取时所有线程共同受限。
+     *
+     * @param throttle 限速器，可被多个分页共享
+     */
+    public ModelPager<M> throttle(Throttle throttle) {
+        return copyWrapped(throttle::wrap);
+    }
+
+    /**
+     * 使用包装后的生产者创建相同设置的分页. 外部传入分页参数时包装后仍由该参数翻页，否则迭代时不会推进该参数。
+     *
+     * @param wrapper 包装生产者，如{@link RetryPolicy#wrap(PageProducer)}
+     */
+    protected ModelPager<M> copyWrapped(UnaryOperator<PageProducer<M>> wrapper) {
+        if (producer instanceof ModelPager.PageableHoldProducer) {
+            Pageable pager = ((PageableHoldProducer<M>) producer).pager;
+            PageProducer<M> wrapped = wrapper.apply(producer);
+            return copyWith(new PageableHoldProducer<>(pager, lastData -> wrapped.next(pager, lastData)));
+        }
+        return copyWith(wrapper.apply(producer));
+    }
+
+    protected PageProducer<M> wrapWithCache(PageCache cache, Object queryId, Function<? super M, ?> lastKeyMapper) {
+        if (producer instanceof ModelPager.PageableHoldProducer) {
+            throw new UnsupportedOperationException("外部传入的分页参数不支持缓存");
+        }
+        return ordered ? cache.wrapOrdered(queryId, producer, lastKeyMapper) : cache.wrap(queryId, producer);
+    }
+
+    /**
+     * 使用另一个生产者创建相同设置的分页
+     */
+    protected ModelPager<M> copyWith(PageProducer<M> producer) {
+        return copySettingsTo(new ModelPager<>(batchSize, producer, ordered));
+    }
+
+    protected <P extends ModelPager<M>> P copySettingsTo(P target) {
+        target.timesLimit = timesLimit;
+        target.prefetchDepth = prefetchDepth;
+        target.prefetchExecutor = prefetchExecutor;
+        target.fanOut = fanOut;
+        target.adaptiveBatchSize = adaptiveBatchSize;
+        target.checkpointFile = checkpointFile;
+        target.checkpointCodec = checkpointCodec;
+        target.resumeCheckpoint = resumeCheckpoint;
+        target.listener = listener;
+        target.lookahead = lookahead;
+        return target;
+    }
+
+    /**
+     * 创建多线程批处理流水线. 当前线程按顺序获取分页数据，由parallelism个工作线程并发处理。
+     *
+     * @param parallelism   工作线程数
+     * @param queueCapacity 待处理队列容量（页数）
+     */
+    public BatchPipeline<M> pipeline(int parallelism, int queueCapacity) {
+        return new BatchPipeline<>(this, parallelism, queueCapacity);
+    }
+
+    /**
+     * 多线程批处理每页数据，所有数据处理完成或失败后返回.
+     *
+     * @param consumer      每页数据的处理逻辑，会被多个线程并发调用
+     * @param parallelism   工作线程数
+     * @param queueCapacity 待处理队列容量（页数）
+     * @return 处理完成的页数
+     * @see BatchPipeline
+     */
+    public int forEachBatch(Consumer<? super M> consumer, int parallelism, int queueCapacity) {
+        return pipeline(parallelism, queueCapacity).run(consumer);
+    }
+
+    /**
+     * 创建广播：扫描一次，每页数据交给多个消费者分别处理.
+     *
+     * @param bufferPages 每个消费者的缓冲页数
+     * @see PageBroadcast
+     */
+    public PageBroadcast<M> broadcast(int bufferPages) {
+        return new PageBroadcast<>(this, bufferPages);
+    }
+
+    /**
+     * 每页数据是否只由分页参数决定. 只有这种生产者才能同时获取多页数据。
+     */
+    protected boolean isOffsetIndependent() {
+        return !ordered && !(producer instanceof ModelPager.PageableHoldProducer);
+    }
+
+    /**
+     * 在限定时间内逐页处理数据，剩余时间不够再处理一页时在页边界停止.
+     * <p>
+     * 每次至少处理一页，以保证进度。只按顺序逐页获取，不使用预取、并发获取，停止时不会有已获取未处理的页。
+     *
+     * @param budget   本次可用的时间
+     * @param consumer 每页数据的处理逻辑
+     * @return 续接点，传给{@link #iterateFor(Continuation, Duration, Consumer)}继续处理
+     */
+    public Continuation<M> iterateFor(Duration budget, Consumer<? super M> consumer) {
+        return iterateFor(new Continuation<>(0, 0, null, false, 0), budget, consumer);
+    }
+
+    /**
+     * 从续接点开始，在限定时间内逐页处理数据. 多个大任务可以在一个线程中轮流执行。
+     *
+     * @param from     上次返回的续接点，已完成时直接返回
+     * @param budget   本次可用的时间
+     * @param consumer 每页数据的处理逻辑
+     * @return 新的续接点
+     * @see #iterateFor(Duration, Consumer)
+     */
+    public Continuation<M> iterateFor(Continuation<M> from, Duration budget, Consumer<? super M> consumer) {
+        if (from.isFinished()) {
+            return from;
+        }
+        if (producer instanceof ModelPager.PageableHoldProducer) {
+            throw new UnsupportedOperationException("外部传入的分页参数不支持分时迭代");
+        }
+        PageIterator iterator = adaptiveBatchSize == null ? new PageIterator() : new PageIterator(adaptiveBatchSize);
+        if (from.getPages() > 0) {
+            iterator.restore(new Checkpoint(from.getPages(), from.getRows(), null, false), from.getLastData());
+        }
+        long budgetNanos = budget.toNanos();
+        long start = System.nanoTime();
+        long pageNanos = from.getPageNanos();
+        boolean first = true;
+        while (true) {
+            long pageStart = System.nanoTime();
+            //已确定是最后一页时结束迭代不再获取，不受剩余时间限制
+            if (!first && !iterator.exceed && pageStart - start + pageNanos > budgetNanos) {
+                break;
+            }
+            if (!iterator.hasNext()) {
+                return new Continuation<>(iterator.times, iterator.total, null, true, pageNanos);
+            }
+            consumer.accept(iterator.next());
+            first = false;
+            long elapsed = System.nanoTime() - pageStart;
+            pageNanos = pageNanos == 0 ? elapsed : (pageNanos * 3 + elapsed) / 4;
+        }
+        M lastData = ordered && iterator.currentResult != null ? continuationData(iterator.currentResult) : null;
+        return new Continuation<>(iterator.times, iterator.total, lastData, false, pageNanos);
+    }
+
+    /**
+     * 续接点中保存的有序分页游标，默认保存整页数据
+     */
+    protected M continuationData(M lastData) {
+        return lastData;
+    }
+
+    /**
+     * 分页参数是否由外部传入. 这种分页由生产者自行翻页，不能改变每次获取的分页参数。
+     */
+    boolean isPageableHeld() {
+        return producer instanceof ModelPager.PageableHoldProducer;
+    }
+
     @Override
     public Iterator<M> iterator() {
+        PageIterator iterator = newIterator();
+        if (resumeCheckpoint != null) {
+            String lastKey = resumeCheckpoint.getLastKey();
+            M lastData = lastKey == null || checkpointCodec == null ? null : checkpointCodec.decode(lastKey);
+            iterator.restore(resumeCheckpoint, ordered ? lastData : null);
+        }
+        return iterator;
+    }
+
+    private PageIterator newIterator() {
+        if (adaptiveBatchSize != null) {
+            if (prefetchDepth > 0) {
+                throw new UnsupportedOperationException("动态调整每页大小不能与预取、并发获取同时使用");
+            }
+            return new PageIterator(adaptiveBatchSize);
+        }
+        if (prefetchDepth > 0 && prefetchExecutor != null) {
+            return newPrefetchIterator(prefetchDepth, prefetchExecutor);
+        }
         if (producer instanceof ModelPager.PageableHoldProducer) {
             //noinspection rawtypes
             Pageable pager = ((PageableHoldProducer<?>) producer).pager;
@@ -68,63 +471,436 @@ public class ModelPager<M> implements Iterable<M> {
         return new PageIterator();
     }
 
+    static IllegalStateException exceedTimesLimit(int timesLimit) {
+        return new IllegalStateException("分页任务已处理 " + timesLimit + " 批次数据，超过最大循环次数！请分析可能存在的bug或调整最大循环次数。");
+    }
+
+    static UnsupportedOperationException exceedBatchSize(int size, int limit) {
+        return new UnsupportedOperationException(String.format("分页任务一次返回的数据量[%d]大于batchSize[%d]", size, limit));
+    }
+
+    /**
+     * 调用生产者获取一页，有监听器时记录耗时
+     *
+     * @param fetch 第几次获取，从1开始
+     */
+    protected PageProducer.Elem<M> fetch(Pageable pageable, @Nullable M lastData, int fetch) {
+        PagerListener l = listener;
+        if (l == null) {
+            return produce(pageable, lastData);
+        }
+        l.onFetchStart(fetch);
+        long start = System.nanoTime();
+        PageProducer.Elem<M> elements;
+        try {
+            elements = produce(pageable, lastData);
+        } catch (RuntimeException | Error e) {
+            l.onError(fetch, e);
+            throw e;
+        }
+        l.onFetchEnd(fetch, elements.getSize(), System.nanoTime() - start);
+        return elements;
+    }
+
+    private PageProducer.Elem<M> produce(Pageable pageable, @Nullable M lastData) {
+        BiFunction<? super M, Integer, ? extends M> truncator = lookahead;
+        if (truncator == null) {
+            return producer.next(pageable, lastData);
+        }
+        int limit = pageable.getLimit();
+        PageProducer.Elem<M> elements = producer.next(new LookaheadQuery(pageable), lastData);
+        int size = elements.getSize();
+        if (size > limit + 1) {
+            throw exceedBatchSize(size, limit + 1);
+        }
+        if (size == limit + 1) {
+            return PageElements.of(truncator.apply(elements.getData(), limit), limit, elements.total());
+        }
+        return new LastPage<>(elements);
+    }
+
+    /**
+     * 是否已确定为最后一页：多取一条模式下没有多出的一条
+     */
+    static boolean isLastPage(PageProducer.Elem<?> elements) {
+        return elements instanceof LastPage;
+    }
+
+    private PageIterator newPrefetchIterator(int depth, Executor executor) {
+        if (producer instanceof ModelPager.PageableHoldProducer) {
+            //noinspection rawtypes
+            Pageable pager = ((PageableHoldProducer<?>) producer).pager;
+            return new PrefetchPageIterator(pager, 1, executor);
+        }
+        return new PrefetchPageIterator(PageQuery.of(1, batchSize), isOffsetIndependent() ? depth : 1, executor);
+    }
+
 
     private class PageIterator extends AbstractIterator<M> {
         @Nullable
         protected M currentResult;
-        private int times = 0;
-        private long total = 0;
-        private boolean exceed;
-        private final Pageable pager;
+        protected int times = 0;
+        protected long total = 0;
+        protected boolean exceed;
+        protected final Pageable pager;
+        @Nullable
+        private final AdaptiveBatchSize.Tuner tuner;
+        /**
+         * 已从断点恢复，下次获取前不再翻页
+         */
+        protected boolean resumed;
+        private int savedPages;
+        private long savedAt;
+        @Nullable
+        private PagerListener.EndReason endReason;
+        /**
+         * 上一页交给消费者的时间，用于统计消费者耗时
+         */
+        private long returnedAt;
 
         public PageIterator() {
             pager = PageQuery.of(1, batchSize);
+            tuner = null;
+        }
+
+        public PageIterator(AdaptiveBatchSize adaptive) {
+            AdaptiveBatchSize.Tuner t = adaptive.newTuner(batchSize);
+            pager = new OffsetQuery(t.getLimit());
+            tuner = t;
         }
 
         public PageIterator(Pageable pager) {
             pager.first();
             this.pager = pager;
+            this.tuner = null;
+        }
+
+        /**
+         * 从断点恢复：分页参数指向下一页，上一页数据为解码后的游标.
+         */
+        void restore(Checkpoint checkpoint, @Nullable M lastData) {
+            times = checkpoint.getPages();
+            total = checkpoint.getRows();
+            savedPages = times;
+            exceed = checkpoint.isFinished();
+            endReason = exceed ? PagerListener.EndReason.CHECKPOINT_FINISHED : null;
+            currentResult = lastData;
+            if (pager instanceof OffsetQuery) {
+                ((OffsetQuery) pager).seek(times + 1, (int) total);
+            } else {
+                ((PageQuery) pager).setPage(times + 1);
+            }
+            resumed = true;
+        }
+
+        /**
+         * 翻到下一页. 刚从断点恢复时分页参数已指向下一页。
+         */
+        protected void nextPage() {
+            if (resumed) {
+                resumed = false;
+            } else if (currentResult != null) {
+                pager.next();
+            }
+        }
+
+        /**
+         * 消费者请求下一页时保存断点，上一页已处理完成.
+         */
+        protected void saveCheckpoint(boolean finished) {
+            CheckpointFile file = checkpointFile;
+            if (file == null) {
+                return;
+            }
+            if (!finished) {
+                if (times - savedPages < file.getEveryPages()) {
+                    return;
+                }
+                if (savedAt != 0 && System.nanoTime() - savedAt < file.getMinIntervalNanos()) {
+                    return;
+                }
+            }
+            String lastKey = currentResult == null || checkpointCodec == null ? null : checkpointCodec.encode(currentResult);
+            file.save(new Checkpoint(times, total, lastKey, finished));
+            savedPages = times;
+            savedAt = System.nanoTime();
+        }
+
+        /**
+         * 数据已全部获取
+         */
+        protected M end() {
+            saveCheckpoint(true);
+            PagerListener l = listener;
+            if (l != null && endReason != null) {
+                l.onEnd(endReason, times, total);
+            }
+            return endOfData();
+        }
+
+        /**
+         * 标记为最后一页
+         */
+        protected void exceed(PagerListener.EndReason reason) {
+            exceed = true;
+            endReason = reason;
+        }
+
+        /**
+         * 消费者请求下一页，上一页已处理完成
+         */
+        protected void onConsumed() {
+            PagerListener l = listener;
+            if (l != null && returnedAt != 0) {
+                l.onPageConsumed(times, System.nanoTime() - returnedAt);
+                returnedAt = 0;
+            }
         }
 
-        private void checkTimesLimit() {
+        protected void checkTimesLimit() {
             if (times > timesLimit) {
-                throw new IllegalStateException("分页任务已处理 " + timesLimit + " 批次数据，超过最大循环次数！请分析可能存在的bug或调整最大循环次数。");
+                IllegalStateException e = exceedTimesLimit(timesLimit);
+                if (listener != null) {
+                    listener.onError(times + 1, e);
+                }
+                throw e;
             }
         }
 
         @Override
         protected M computeNext() {
-            if (currentResult != null) {//非第一页，切换页码
-                pager.next();
+            onConsumed();
+            nextPage();
+            if (tuner != null) {
+                ((OffsetQuery) pager).setLimit(tuner.getLimit());
             }
             if (exceed) {
-                return endOfData();
+                return end();
             }
+            saveCheckpoint(false);
             checkTimesLimit();
-            PageProducer.Elem<M> elements = producer.next(pager, currentResult);
+            if (tuner == null) {
+                return accept(fetch(pager, currentResult, times + 1));
+            }
+            long start = System.nanoTime();
+            PageProducer.Elem<M> elements = fetch(pager, currentResult, times + 1);
+            tuner.next(elements.getSize(), System.nanoTime() - start);
+            return accept(elements);
+        }
+
+        /**
+         * 按分页结束规则处理一页数据：空页结束，不满一页或达到总数时标记为最后一页.
+         */
+        protected M accept(PageProducer.Elem<M> elements) {
             int size = elements.getSize();
             total += size;
             times += 1;
 
             if (size == 0) {
-                return endOfData();
+                exceed(PagerListener.EndReason.EMPTY_PAGE);
+                return end();
             }
             if (size > pager.getLimit()) {
-                throw new UnsupportedOperationException(String.format("分页任务一次返回的数据量[%d]大于batchSize[%d]", size, pager.getLimit()));
+                throw exceedBatchSize(size, pager.getLimit());
+            }
+            PagerListener l = listener;
+            if (l != null) {
+                l.onPage(times, size, total);
+                returnedAt = System.nanoTime();
             }
             if (size < pager.getLimit()) {
-                exceed = true;
+                exceed(PagerListener.EndReason.SHORT_PAGE);
+                return currentResult = elements.getData();
+            }
+            if (isLastPage(elements)) {
+                exceed(PagerListener.EndReason.NO_LOOKAHEAD_ROW);
                 return currentResult = elements.getData();
             }
             // size == pager.limit
             long totalLimit = elements.total();
             if (totalLimit > 0 && totalLimit <= total) {
-                exceed = true;
+                exceed(PagerListener.EndReason.TOTAL_REACHED);
             }
             return currentResult = elements.getData();
         }
     }
 
+    /**
+     * 预取迭代器. 消费者拿到第N页时，后续页面已经在后台获取。
+     * 并发获取模式下，得知总数前只提前获取1页，得知总数后只获取总数范围内的页。
+     * 提前结束迭代时调用{@link #close()}取消已提交的获取，正在执行的获取会被中断。
+     */
+    private class PrefetchPageIterator extends PageIterator implements CloseableIterator<M> {
+        private final Deque<CompletableFuture<PageProducer.Elem<M>>> pending = new ArrayDeque<>();
+        private final int depth;
+        private final Executor executor;
+        /**
+         * 已提交的获取次数
+         */
+        private int scheduled = 0;
+        /**
+         * 根据总数推算出的最后一页页码，未知时为{@link Integer#MAX_VALUE}
+         */
+        private int lastPage = Integer.MAX_VALUE;
+        private boolean closed;
+
+        PrefetchPageIterator(Pageable pager, int depth, Executor executor) {
+            super(pager);
+            this.depth = depth;
+            this.executor = executor;
+        }
+
+        @Override
+        void restore(Checkpoint checkpoint, @Nullable M lastData) {
+            super.restore(checkpoint, lastData);
+            scheduled = checkpoint.getPages();
+        }
+
+        @Override
+        protected M computeNext() {
+            if (closed) {
+                return endOfData();
+            }
+            onConsumed();
+            if (exceed) {
+                return end();
+            }
+            saveCheckpoint(false);
+            checkTimesLimit();
+            if (pending.isEmpty()) {
+                schedule();
+                if (pending.isEmpty()) {//已达到总数推算的最后一页
+                    exceed(PagerListener.EndReason.TOTAL_REACHED);
+                    return end();
+                }
+            }
+            PageProducer.Elem<M> elements = Concurrents.await(pending.poll());
+            long totalLimit = elements.total();
+            if (totalLimit > 0) {
+                lastPage = (int) Math.min(Integer.MAX_VALUE, (totalLimit + pager.getLimit() - 1) / pager.getLimit());
+            }
+            M result = accept(elements);
+            if (exceed) {
+                cancelPending();
+                return result;
+            }
+            schedule();
+            return result;
+        }
+
+        /**
+         * 补齐预取队列. 有序分页只能在拿到上一页后提交下一页。
+         */
+        private void schedule() {
+            if (depth == 1 && !isOffsetIndependent()) {
+                if (pending.isEmpty() && scheduled <= timesLimit) {
+                    nextPage();
+                    M lastData = currentResult;
+                    int fetch = ++scheduled;
+                    pending.add(Concurrents.supplyInterruptibly(() -> fetch(pager, lastData, fetch), executor));
+                }
+                return;
+            }
+            int window = fanOut && lastPage == Integer.MAX_VALUE ? 1 : depth;
+            while (pending.size() < window && scheduled <= timesLimit && scheduled < lastPage) {
+                int fetch = ++scheduled;
+                Pageable pageable = PageQuery.of(fetch, pager.getLimit());
+                pending.add(Concurrents.supplyInterruptibly(() -> fetch(pageable, null, fetch), executor));
+            }
+        }
+
+        private void cancelPending() {
+            CompletableFuture<PageProducer.Elem<M>> future;
+            while ((future = pending.poll()) != null) {
+                future.cancel(true);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            cancelPending();
+        }
+    }
+
+    /**
+     * 多取一条模式下请求的分页参数，条数比原分页多1条
+     */
+    @RequiredArgsConstructor
+    private static final class LookaheadQuery implements Pageable {
+        private final Pageable delegate;
+
+        @Nullable
+        @Override
+        public Integer getOffset() {
+            return delegate.getOffset();
+        }
+
+        @Nullable
+        @Override
+        public Integer getPage() {
+            return delegate.getPage();
+        }
+
+        @Override
+        public int getLimit() {
+            return delegate.getLimit() + 1;
+        }
+
+        @Override
+        public boolean isPaged() {
+            return delegate.isPaged();
+        }
+
+        @Override
+        public boolean isUnpaged() {
+            return delegate.isUnpaged();
+        }
+
+        @Override
+        public boolean isFirstPage() {
+            return delegate.isFirstPage();
+        }
+
+        @Override
+        public void next() {
+            throw new UnsupportedOperationException("生产者不能翻页");
+        }
+
+        @Override
+        public void first() {
+            throw new UnsupportedOperationException("生产者不能翻页");
+        }
+
+        @Override
+        public String toString() {
+            return delegate + "，多取1条";
+        }
+    }
+
+    /**
+     * 多取一条模式下没有多出一条的页
+     */
+    @RequiredArgsConstructor
+    private static final class LastPage<M> implements PageProducer.Elem<M> {
+        private final PageProducer.Elem<M> delegate;
+
+        @Override
+        public M getData() {
+            return delegate.getData();
+        }
+
+        @Override
+        public int getSize() {
+            return delegate.getSize();
+        }
+
+        @Override
+        public long total() {
+            return delegate.total();
+        }
+    }
+
     @RequiredArgsConstructor
     private static class PageableHoldProducer<M> implements PageProducer<M> {
         @Getter
@@ -0,0 +1,81 @@
+package io.github.terrason.iterapager;
+
+import lombok.Getter;
+
+/**
+ * 按累计偏移量翻页的分页参数. 每页的数据条数可以不同，翻页时偏移量增加当前页的条数。
+ * <p>
+ * 只有满页才会翻页（不满一页即到达末尾），所以累计偏移量总是等于已获取的数据量。
+ *
+ * @author lipei
+ */
+@Getter
+public class OffsetQuery implements Pageable {
+    private int offset;
+    private int page = 1;
+    private int limit;
+
+    public OffsetQuery(int limit) {
+        setLimit(limit);
+    }
+
+    @Override
+    public Integer getOffset() {
+        return offset;
+    }
+
+    @Override
+    public Integer getPage() {
+        return page;
+    }
+
+    /**
+     * 调整下一页的数据条数
+     */
+    public void setLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("分页大小不能小于1：" + limit);
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean isPaged() {
+        return true;
+    }
+
+    @Override
+    public boolean isUnpaged() {
+        return false;
+    }
+
+    @Override
+    public boolean isFirstPage() {
+        return page == 1;
+    }
+
+    @Override
+    public void next() {
+        offset += limit;
+        page++;
+    }
+
+    @Override
+    public void first() {
+        offset = 0;
+        page = 1;
+    }
+
+    /**
+     * 直接定位到某一页，用于从断点继续
+     */
+    void seek(int page, int offset) {
+        this.page = page;
+        this.offset = offset;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("第%d页（偏移%d，本页%d条）", page, offset, limit);
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 一次扫描同时交给多个消费者处理，如同一份数据分别用于建立索引、预热缓存和审计.
+ * <p>
+ * 调用{@link #run()}的线程按顺序获取分页数据，放入每个消费者各自的有界缓冲，每个消费者在各自的线程中按顺序处理。
+ * 任一缓冲满时获取暂停，扫描按最慢的消费者的速度推进，内存中最多同时存在
+ * {@code 消费者数 × (bufferPages + 1) + 1} 页数据。
+ * 同一页数据会交给所有消费者，消费者不能修改。任一消费者或生产者失败时，其他消费者停止处理，{@link #run()}抛出第一个异常。
+ *
+ * @param <M> 分页查询结果类型
+ * @author lipei
+ */
+public class PageBroadcast<M> {
+    /**
+     * 等待所有消费者线程启动的最长时间
+     */
+    private static final long START_TIMEOUT_MILLIS = 5000;
+
+    private final ModelPager<M> pager;
+    private final int bufferPages;
+    private final List<Consumer<? super M>> consumers = new ArrayList<>();
+    @Nullable
+    private Executor executor;
+
+    @Nullable
+    private volatile Throwable failure;
+
+    PageBroadcast(ModelPager<M> pager, int bufferPages) {
+        if (bufferPages < 1) {
+            throw new IllegalArgumentException("缓冲页数不能小于1：" + bufferPages);
+        }
+        this.pager = pager;
+        this.bufferPages = bufferPages;
+    }
+
+    /**
+     * 添加消费者
+     *
+     * @param consumer 每页数据的处理逻辑，在该消费者自己的线程中按页顺序调用
+     */
+    public PageBroadcast<M> subscribe(Consumer<? super M> consumer) {
+        consumers.add(consumer);
+        return this;
+    }
+
+    /**
+     * 设置执行消费者的线程池，每个消费者占用一个线程. 未设置时每次运行为每个消费者创建一个线程（Java 21 及以上为虚拟线程），运行结束后销毁。
+     * <p>
+     * 线程池必须为每个消费者提供一个空闲线程：所有消费者启动后才开始获取数据，5秒内未全部启动时{@link #run()}失败。
+     * 线程池拒绝任务时{@link #run()}抛出该异常，已启动的消费者随即停止。
+     */
+    public PageBroadcast<M> executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 扫描一次，所有消费者处理完成或失败后返回.
+     *
+     * @return 获取的页数
+     */
+    public int run() {
+        if (consumers.isEmpty()) {
+            throw new IllegalStateException("没有消费者");
+        }
+        failure = null;
+        List<PageChannel<M>> channels = new ArrayList<>(consumers.size());
+        for (int i = 0; i < consumers.size(); i++) {
+            channels.add(new PageChannel<>(bufferPages));
+        }
+        CountDownLatch ready = new CountDownLatch(consumers.size());
+        CountDownLatch finished = new CountDownLatch(consumers.size());
+        List<AtomicBoolean> claims = new ArrayList<>(consumers.size());
+        ExecutorService ownExecutor = executor == null ? PagerExecutors.newWorkerPool("iterapager-broadcast", consumers.size()) : null;
+        Executor workers = ownExecutor == null ? executor : ownExecutor;
+        int pages = 0;
+        try {
+            try {
+                for (int i = 0; i < consumers.size(); i++) {
+                    Consumer<? super M> consumer = consumers.get(i);
+                    PageChannel<M> channel = channels.get(i);
+                    AtomicBoolean claim = new AtomicBoolean();
+                    claims.add(claim);
+                    workers.execute(() -> work(claim, channel, consumer, channels, ready, finished));
+                }
+            } catch (RuntimeException e) {
+                fail(e, channels);
+            }
+            if (failure == null && !Uninterruptibles.awaitUninterruptibly(ready, START_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                fail(new IllegalStateException("线程池没有为每个消费者提供空闲线程：" + consumers.size() + "个消费者，"
+                        + (consumers.size() - ready.getCount()) + "个已启动"), channels);
+            }
+            if (failure == null) {
+                try {
+                    pages = drive(channels);
+                } catch (RuntimeException | Error e) {
+                    fail(e, channels);
+                }
+            }
+            //未提交或未启动的消费者不再等待，之后启动时直接退出
+            for (AtomicBoolean claim : claims) {
+                if (claim.compareAndSet(false, true)) {
+                    finished.countDown();
+                }
+            }
+            for (int i = claims.size(); i < consumers.size(); i++) {
+                finished.countDown();
+            }
+            Uninterruptibles.awaitUninterruptibly(finished);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+        Throwable cause = failure;
+        if (cause != null) {
+            throw Concurrents.propagate(cause);
+        }
+        return pages;
+    }
+
+    private int drive(List<PageChannel<M>> channels) {
+        Iterator<M> iterator = pager.iterator();
+        int pages = 0;
+        try {
+            while (failure == null && iterator.hasNext()) {
+                M page = iterator.next();
+                pages++;
+                for (PageChannel<M> channel : channels) {
+                    if (!channel.put(page)) {//消费者失败，扫描停止
+                        return pages;
+                    }
+                }
+            }
+        } finally {
+            //提前停止时取消预取
+            if (iterator instanceof CloseableIterator) {
+                ((CloseableIterator<?>) iterator).close();
+            }
+        }
+        for (PageChannel<M> channel : channels) {
+            channel.complete();
+        }
+        return pages;
+    }
+
+    private void work(AtomicBoolean claim, PageChannel<M> channel, Consumer<? super M> consumer, List<PageChannel<M>> channels,
+            CountDownLatch ready, CountDownLatch finished) {
+        if (!claim.compareAndSet(false, true)) {//启动超时，已放弃该消费者
+            return;
+        }
+        ready.countDown();
+        try {
+            M page;
+            while ((page = channel.take()) != null) {
+                consumer.accept(page);
+            }
+        } catch (RuntimeException | Error e) {
+            fail(e, channels);
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * 记录第一个异常，关闭所有缓冲，等待中的获取和消费者都会停止
+     */
+    private void fail(Throwable cause, List<PageChannel<M>> channels) {
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            failure = cause;
+        }
+        for (PageChannel<M> channel : channels) {
+            channel.close();
+            channel.fail(cause);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 进程内共享的分页结果缓存.
+ * <p>
+ * 以（查询标识, 偏移量, 分页大小）或（查询标识, 上一页最后一个元素的键, 分页大小）为键缓存每页结果，
+ * 同一个分页重复迭代，或多个分页使用同一查询标识时，命中的页不再调用生产者。
+ * 缓存的数据会被多次迭代共享，消费者不能修改。
+ *
+ * @author lipei
+ */
+public class PageCache {
+    private final Cache<PageKey, PageProducer.Elem<?>> cache;
+
+    private PageCache(Cache<PageKey, PageProducer.Elem<?>> cache) {
+        this.cache = cache;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 包装按偏移量分页的生产者.
+     *
+     * @param queryId  查询标识，相同标识的生产者必须返回相同的数据
+     * @param producer 被缓存的生产者
+     */
+    public <M> PageProducer<M> wrap(Object queryId, PageProducer<M> producer) {
+        return new CachingPageProducer<>(queryId, producer, null);
+    }
+
+    /**
+     * 包装有序分页的生产者.
+     *
+     * @param queryId      查询标识，相同标识的生产者必须返回相同的数据
+     * @param producer     被缓存的生产者
+     * @param lastKeyMapper 从上一页数据中提取游标键，如最后一个元素的ID
+     */
+    public <M> PageProducer<M> wrapOrdered(Object queryId, PageProducer<M> producer, Function<? super M, ?> lastKeyMapper) {
+        return new CachingPageProducer<>(queryId, producer, lastKeyMapper);
+    }
+
+    /**
+     * 命中率、加载次数、淘汰次数等统计
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * 清除某个查询的所有缓存页
+     */
+    public void invalidate(Object queryId) {
+        cache.asMap().keySet().removeIf(key -> key.queryId.equals(queryId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    private static final class PageKey {
+        private final Object queryId;
+        private final int offset;
+        private final int limit;
+        @Nullable
+        private final Object lastKey;
+    }
+
+    private final class CachingPageProducer<M> implements PageProducer<M> {
+        private final Object queryId;
+        private final PageProducer<M> producer;
+        @Nullable
+        private final Function<? super M, ?> lastKeyMapper;
+
+        CachingPageProducer(Object queryId, PageProducer<M> producer, @Nullable Function<? super M, ?> lastKeyMapper) {
+            this.queryId = queryId;
+            this.producer = producer;
+            this.lastKeyMapper = lastKeyMapper;
+        }
+
+        @Override
+        public Elem<M> next(Pageable pageable, @Nullable M lastData) {
+            PageKey key = lastKeyMapper == null
+                    ? new PageKey(queryId, pageable.offset(), pageable.getLimit(), null)
+                    : new PageKey(queryId, 0, pageable.getLimit(), lastData == null ? null : lastKeyMapper.apply(lastData));
+            try {
+                @SuppressWarnings("unchecked")
+                Elem<M> elements = (Elem<M>) cache.get(key, () -> producer.next(pageable, lastData));
+                return elements;
+            } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+                throw Concurrents.propagate(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * 缓存配置. 最大页数与最大权重只能设置一个。
+     */
+    public static final class Builder {
+        private final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+
+        private Builder() {
+        }
+
+        /**
+         * 最多缓存的页数，超出时淘汰最近最少使用的页
+         */
+        public Builder maximumPages(long pages) {
+            builder.maximumSize(pages);
+            return this;
+        }
+
+        /**
+         * 最多缓存的数据条数，超出时淘汰最近最少使用的页
+         */
+        public Builder maximumRows(long rows) {
+            builder.maximumWeight(rows)
+                    .weigher((PageKey key, PageProducer.Elem<?> page) -> page.getSize());
+            return this;
+        }
+
+        /**
+         * 按估算的内存占用限制缓存，超出时淘汰最近最少使用的页
+         *
+         * @param bytes       最大字节数
+         * @param bytesPerRow 估算的每条数据字节数
+         */
+        public Builder maximumBytes(long bytes, int bytesPerRow) {
+            builder.maximumWeight(bytes)
+                    .weigher((PageKey key, PageProducer.Elem<?> page) ->
+                            (int) Math.min(Integer.MAX_VALUE, (long) page.getSize() * bytesPerRow));
+            return this;
+        }
+
+        /**
+         * 写入后经过指定时长失效
+         */
+        public Builder expireAfterWrite(Duration ttl) {
+            builder.expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS);
+            return this;
+        }
+
+        public PageCache build() {
+            return new PageCache(builder.build());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后台获取分页数据与消费者之间的有界缓冲. 缓冲满时生产端阻塞，消费端关闭后生产端停止放入。
+ *
+ * @param <M> 分页查询结果类型
+ * @author lipei
+ */
+final class PageChannel<M> {
+    private static final Object END = new Object();
+    private static final long OFFER_INTERVAL_MILLIS = 50;
+
+    private final BlockingQueue<Object> queue;
+    private volatile boolean closed;
+    @Nullable
+    private volatile Throwable failure;
+    private boolean ended;
+
+    PageChannel(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("缓冲页数不能小于1：" + capacity);
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 放入一页数据，缓冲满时阻塞.
+     *
+     * @return {@code false}-消费端已关闭，应停止获取数据
+     */
+    boolean put(M page) {
+        return offer(page);
+    }
+
+    /**
+     * 生产端数据已全部放入.
+     */
+    void complete() {
+        offer(END);
+    }
+
+    /**
+     * 生产端失败，消费端下次获取时抛出该异常. 只保留第一个异常。
+     */
+    void fail(Throwable cause) {
+        if (failure == null) {
+            failure = cause;
+        }
+        //唤醒等待中的消费端，缓冲满时消费端不会等待
+        queue.offer(END);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 获取下一页数据，缓冲为空时阻塞.
+     *
+     * @return {@code null}-数据已全部获取
+     */
+    @Nullable
+    M take() {
+        checkFailure();
+        if (ended) {
+            return null;
+        }
+        Object page;
+        try {
+            page = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("等待分页数据时线程被中断", e);
+        }
+        checkFailure();
+        if (page == END) {
+            ended = true;
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        M result = (M) page;
+        return result;
+    }
+
+    /**
+     * 消费端关闭，丢弃已缓冲的数据.
+     */
+    void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void checkFailure() {
+        Throwable cause = failure;
+        if (cause != null) {
+            close();
+            throw Concurrents.propagate(cause);
+        }
+    }
+
+    private boolean offer(Object element) {
+        try {
+            while (!closed) {
+                if (queue.offer(element, OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
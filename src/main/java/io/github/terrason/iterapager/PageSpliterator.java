@@ -0,0 +1,243 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 逐页展开分页数据的{@link Spliterator}.
+ * <p>
+ * 每页数据只由分页参数决定时，按页码区间拆分，得知总数后拆分出的区间报告{@link #SIZED}；
+ * 否则每次拆分交出一整页数据，按顺序逐页获取。创建流时不获取数据，第一次遍历或拆分时才调用生产者。
+ *
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+abstract class PageSpliterator<T> implements Spliterator<T> {
+    /**
+     * 当前页尚未遍历的元素
+     */
+    @Nullable
+    protected Spliterator<T> buffer;
+
+    /**
+     * 获取下一页数据，没有数据时返回{@code null}
+     */
+    @Nullable
+    protected abstract Collection<T> nextPage();
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (true) {
+            if (buffer != null && buffer.tryAdvance(action)) {
+                return true;
+            }
+            Collection<T> page = nextPage();
+            if (page == null) {
+                buffer = null;
+                return false;
+            }
+            buffer = page.spliterator();
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        if (buffer != null) {
+            buffer.forEachRemaining(action);
+            buffer = null;
+        }
+        Collection<T> page;
+        while ((page = nextPage()) != null) {
+            page.forEach(action);
+        }
+    }
+
+    /**
+     * 按批拆分：交出当前页剩余数据，当前页已遍历完时获取下一页交出.
+     */
+    @Nullable
+    protected Spliterator<T> splitPage() {
+        Spliterator<T> prefix = buffer;
+        if (prefix == null) {
+            Collection<T> page = nextPage();
+            if (page == null) {
+                return null;
+            }
+            prefix = page.spliterator();
+        }
+        buffer = null;
+        return prefix;
+    }
+
+    /**
+     * 按{@link ModelPager#iterator()}逐页获取，适用于有序分页.
+     */
+    static final class Sequential<T> extends PageSpliterator<T> {
+        private final Iterator<? extends Collection<T>> pages;
+
+        Sequential(Iterator<? extends Collection<T>> pages) {
+            this.pages = pages;
+        }
+
+        @Nullable
+        @Override
+        protected Collection<T> nextPage() {
+            return pages.hasNext() ? pages.next() : null;
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<T> trySplit() {
+            return splitPage();
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED;
+        }
+    }
+
+    /**
+     * 按页码区间[page, endPage)获取，每页数据只由分页参数决定.
+     */
+    static final class Ranged<T> extends PageSpliterator<T> {
+        private final ModelPager<Collection<T>> pager;
+        private int page;
+        /**
+         * 结束页码（不含），未知时为{@link Integer#MAX_VALUE}
+         */
+        private int endPage;
+        /**
+         * 生产者报告的总数，未知时为-1
+         */
+        private long total;
+        private boolean started;
+        /**
+         * 创建时已得知总数. 最初的区间总数未知，只有得知总数后拆分出的区间报告{@link #SIZED}，特征不随获取而改变。
+         */
+        private final boolean sized;
+
+        Ranged(ModelPager<Collection<T>> pager) {
+            this.pager = pager;
+            this.page = 1;
+            this.endPage = Integer.MAX_VALUE;
+            this.total = -1;
+            this.sized = false;
+        }
+
+        private Ranged(Ranged<T> parent, int endPage) {
+            this.pager = parent.pager;
+            this.page = parent.page;
+            this.endPage = endPage;
+            this.total = parent.total;
+            this.buffer = parent.buffer;
+            this.started = true;
+            this.sized = parent.total >= 0;
+        }
+
+        /**
+         * 第一次使用时先获取第一页，以便得知总数.
+         */
+        private void ensureStarted() {
+            if (!started) {
+                started = true;
+                Collection<T> first = nextPage();
+                if (first != null) {
+                    buffer = first.spliterator();
+                }
+            }
+        }
+
+        @Nullable
+        @Override
+        protected Collection<T> nextPage() {
+            started = true;
+            if (page >= endPage) {
+                return null;
+            }
+            if (page - 1 > pager.timesLimit) {
+                throw ModelPager.exceedTimesLimit(pager.timesLimit);
+            }
+            int limit = pager.batchSize;
+            PageProducer.Elem<Collection<T>> elements = pager.fetch(PageQuery.of(page, limit), null, page);
+            int size = elements.getSize();
+            if (size == 0) {
+                endPage = page;
+                return null;
+            }
+            if (size > limit) {
+                throw ModelPager.exceedBatchSize(size, limit);
+            }
+            long totalLimit = elements.total();
+            if (totalLimit > 0) {
+                total = totalLimit;
+                long lastPage = (totalLimit + limit - 1) / limit;
+                endPage = (int) Math.min(endPage, Math.min(Integer.MAX_VALUE, lastPage + 1));
+            }
+            page++;
+            if (size < limit || ModelPager.isLastPage(elements)) {
+                endPage = Math.min(endPage, page);
+            }
+            return elements.getData();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            ensureStarted();
+            return super.tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            ensureStarted();
+            super.forEachRemaining(action);
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<T> trySplit() {
+            ensureStarted();
+            if (total >= 0 && endPage - page >= 2) {
+                int mid = page + (endPage - page) / 2;
+                Ranged<T> prefix = new Ranged<>(this, mid);
+                buffer = null;
+                page = mid;
+                return prefix;
+            }
+            return splitPage();
+        }
+
+        /**
+         * 未开始获取时总数未知，不为估算大小而获取数据.
+         */
+        @Override
+        public long estimateSize() {
+            if (!started) {
+                return Long.MAX_VALUE;
+            }
+            long buffered = buffer == null ? 0 : buffer.estimateSize();
+            if (page >= endPage) {
+                return buffered;
+            }
+            if (total < 0) {
+                return Long.MAX_VALUE;
+            }
+            long limit = pager.batchSize;
+            long remains = Math.min(total, (endPage - 1) * limit) - (page - 1) * limit;
+            return buffered + Math.max(remains, 0);
+        }
+
+        @Override
+        public int characteristics() {
+            return sized ? ORDERED | SIZED | SUBSIZED : ORDERED;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.terrason.iterapager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * 逐页迭代的数据集合，提供逐个元素展开的便捷方法.
+ *
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+public interface PagedIterable<T> extends Iterable<Collection<T>> {
+
+    /**
+     * 逐个元素迭代. {@link java.util.RandomAccess}的页按下标遍历，页内不创建任何对象。
+     * <p>
+     * 需要提前结束后台扫描时使用{@link #closeableConcat()}。
+     */
+    default Iterator<T> concat() {
+        return closeableConcat();
+    }
+
+    default <D> Iterator<D> concat(Function<? super T, ? extends D> mapper) {
+        return closeableConcat(mapper);
+    }
+
+    /**
+     * 可关闭的逐个元素迭代. {@link #iterator()}由后台任务驱动时（如{@link PartitionedPager}、{@link UnionPager}、预取），
+     * 提前结束迭代请调用{@link CloseableIterator#close()}停止后台任务。
+     */
+    default CloseableIterator<T> closeableConcat() {
+        return new FlatIterator<>(iterator(), null);
+    }
+
+    default <D> CloseableIterator<D> closeableConcat(Function<? super T, ? extends D> mapper) {
+        return new FlatIterator<>(iterator(), mapper);
+    }
+
+    /**
+     * 逐个元素迭代的{@link Iterable}，每次迭代返回{@link #concat()}. 需要提前结束后台扫描时使用{@link #closeableConcat()}。
+     */
+    default Iterable<T> flat() {
+        return this::concat;
+    }
+
+    default <D> Iterable<D> flat(Function<T, D> mapper) {
+        return () -> concat(mapper);
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 并发分页的默认线程.
+ * <p>
+ * Java 21 及以上版本运行时（多版本JAR中的实现）每次获取使用一个虚拟线程，阻塞式的生产者不会占用平台线程；
+ * 低版本使用守护线程池。
+ *
+ * @author lipei
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PagerExecutors {
+    private static final Executor PER_FETCH = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("iterapager-fetch-%d")
+            .setDaemon(true)
+            .build());
+
+    /**
+     * 执行分页获取任务的默认线程池. 并发数由预取深度、并发数等参数控制，线程池本身不限制。
+     */
+    public static Executor perFetch() {
+        return PER_FETCH;
+    }
+
+    /**
+     * 默认线程是否为虚拟线程
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    /**
+     * 创建固定数量的工作线程，用完后需要关闭
+     */
+    static ExecutorService newWorkerPool(String name, int threads) {
+        ThreadFactory factory = new ThreadFactoryBuilder()
+                .setNameFormat(name + "-%d")
+                .setDaemon(true)
+                .build();
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+}
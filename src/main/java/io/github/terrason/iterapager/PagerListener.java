@@ -0,0 +1,103 @@
+package io.github.terrason.iterapager;
+
+/**
+ * 分页迭代的监听器，用于采集每页耗时、数据量等指标.
+ * <p>
+ * 未设置监听器时不会产生任何额外开销。预取、并发获取时{@link #onFetchStart}和{@link #onFetchEnd}在后台线程中回调，
+ * 其余回调在迭代线程中进行，实现需要保证线程安全且尽量轻量。
+ *
+ * @author lipei
+ * @see PagerMetrics
+ */
+public interface PagerListener {
+
+    /**
+     * 开始调用生产者获取一页
+     *
+     * @param page 第几次获取，从1开始
+     */
+    default void onFetchStart(int page) {
+    }
+
+    /**
+     * 生产者返回一页
+     *
+     * @param page  第几次获取，从1开始
+     * @param size  本页数据量
+     * @param nanos 生产者耗时
+     */
+    default void onFetchEnd(int page, int size, long nanos) {
+    }
+
+    /**
+     * 一页数据交给消费者
+     *
+     * @param page  第几页，从1开始
+     * @param size  本页数据量
+     * @param total 累计数据量
+     */
+    default void onPage(int page, int size, long total) {
+    }
+
+    /**
+     * 消费者处理完一页，请求下一页
+     *
+     * @param page  第几页，从1开始
+     * @param nanos 消费者处理这一页的耗时
+     */
+    default void onPageConsumed(int page, long nanos) {
+    }
+
+    /**
+     * 数据已全部获取
+     *
+     * @param reason 判断到达末尾的依据
+     * @param pages  获取次数
+     * @param total  累计数据量
+     */
+    default void onEnd(EndReason reason, int pages, long total) {
+    }
+
+    /**
+     * 获取数据失败，包括超过最大循环次数
+     *
+     * @param page  第几次获取，从1开始
+     * @param error 异常
+     */
+    default void onError(int page, Throwable error) {
+    }
+
+    /**
+     * 到达末尾的依据
+     */
+    enum EndReason {
+        /**
+         * 生产者返回空页
+         */
+        EMPTY_PAGE,
+        /**
+         * 生产者返回不满一页
+         */
+        SHORT_PAGE,
+        /**
+         * 累计数据量达到生产者报告的总数
+         */
+        TOTAL_REACHED,
+        /**
+         * 多取一条模式下没有多出的一条
+         */
+        NO_LOOKAHEAD_ROW,
+        /**
+         * 从已结束的断点继续
+         */
+        CHECKPOINT_FINISHED,
+        /**
+         * 已返回{@link SlicedPager#limit(long)}限制的条数
+         */
+        LIMIT_REACHED,
+        /**
+         * 元素不满足{@link SlicedPager#whileTrue(java.util.function.Predicate)}的条件
+         */
+        PREDICATE_FAILED
+    }
+}
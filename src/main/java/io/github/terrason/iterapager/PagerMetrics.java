@@ -0,0 +1,173 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内置的无锁指标记录器.
+ * <p>
+ * 记录获取次数、数据量、生产者耗时直方图（按2的幂分桶，单位微秒）、吞吐量，以及生产者与消费者的耗时占比。
+ * 可被多个分页、多次迭代共享，所有方法都可以在迭代过程中随时调用。
+ *
+ * @author lipei
+ */
+public class PagerMetrics implements PagerListener {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder producerNanos = new LongAdder();
+    private final LongAdder consumerNanos = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    /**
+     * 第i个桶记录耗时在[2^(i-1), 2^i)微秒之间的获取次数，第0个桶记录不足1微秒的
+     */
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxFetchNanos = new AtomicLong();
+    private final AtomicLong firstFetchAt = new AtomicLong();
+    private final AtomicLong lastEventAt = new AtomicLong();
+    private final AtomicReference<EndReason> endReason = new AtomicReference<>();
+
+    @Override
+    public void onFetchStart(int page) {
+        long now = System.nanoTime();
+        firstFetchAt.compareAndSet(0, now);
+        lastEventAt.accumulateAndGet(now, Math::max);
+    }
+
+    @Override
+    public void onFetchEnd(int page, int size, long nanos) {
+        fetches.increment();
+        rows.add(size);
+        producerNanos.add(nanos);
+        latencyBuckets.incrementAndGet(bucketOf(nanos));
+        maxFetchNanos.accumulateAndGet(nanos, Math::max);
+        lastEventAt.accumulateAndGet(System.nanoTime(), Math::max);
+    }
+
+    @Override
+    public void onPageConsumed(int page, long nanos) {
+        consumerNanos.add(nanos);
+        lastEventAt.accumulateAndGet(System.nanoTime(), Math::max);
+    }
+
+    @Override
+    public void onEnd(EndReason reason, int pages, long total) {
+        endReason.set(reason);
+        lastEventAt.accumulateAndGet(System.nanoTime(), Math::max);
+    }
+
+    @Override
+    public void onError(int page, Throwable error) {
+        errors.increment();
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        return micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    public long getFetchCount() {
+        return fetches.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * 生产者累计耗时（纳秒）
+     */
+    public long getProducerNanos() {
+        return producerNanos.sum();
+    }
+
+    /**
+     * 消费者累计耗时（纳秒）
+     */
+    public long getConsumerNanos() {
+        return consumerNanos.sum();
+    }
+
+    /**
+     * 生产者耗时占生产者与消费者总耗时的比例. 远大于0.5说明瓶颈在数据源，可考虑预取或并发获取。
+     */
+    public double getProducerRatio() {
+        long producer = getProducerNanos();
+        long sum = producer + getConsumerNanos();
+        return sum == 0 ? 0 : (double) producer / sum;
+    }
+
+    public long getMaxFetchNanos() {
+        return maxFetchNanos.get();
+    }
+
+    public double getMeanFetchNanos() {
+        long count = getFetchCount();
+        return count == 0 ? 0 : (double) getProducerNanos() / count;
+    }
+
+    /**
+     * 生产者耗时的近似分位数，取所在分桶的上界
+     *
+     * @param quantile 分位，如0.99
+     * @return 耗时（纳秒）
+     */
+    public long getFetchNanosAtQuantile(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencyBuckets.get(i);
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(getMaxFetchNanos(), TimeUnit.MICROSECONDS.toNanos(1L << i));
+            }
+        }
+        return getMaxFetchNanos();
+    }
+
+    /**
+     * 从第一次获取开始到最近一次事件的平均吞吐量（条/秒）
+     */
+    public double getRowsPerSecond() {
+        long first = firstFetchAt.get();
+        long elapsed = lastEventAt.get() - first;
+        return first == 0 || elapsed <= 0 ? 0 : getRows() * 1e9 / elapsed;
+    }
+
+    /**
+     * 最近一次迭代结束的依据，未结束时为{@code null}
+     */
+    @Nullable
+    public EndReason getEndReason() {
+        return endReason.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("获取%d次，共%d条，%.1f条/秒，平均耗时%.2fms，p99耗时%.2fms，生产者耗时占比%.0f%%，失败%d次",
+                getFetchCount(),
+                getRows(),
+                getRowsPerSecond(),
+                getMeanFetchNanos() / 1e6,
+                getFetchNanosAtQuantile(0.99) / 1e6,
+                getProducerRatio() * 100,
+                getErrorCount());
+    }
+}
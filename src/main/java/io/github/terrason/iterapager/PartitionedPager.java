@@ -0,0 +1,301 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按键区间分区并行扫描的有序分页.
+ * <p>
+ * 每个分区[lo, hi)各自按{@link IteraPager#ofOrdered(int, DataProducer)}的方式用上一批数据的最后一个元素作为游标，
+ * 多个分区在线程池中同时扫描，结果合并为一个迭代器：按分区顺序输出，或按到达顺序交错输出。
+ *
+ * @param <K> 排序键类型
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+public class PartitionedPager<K extends Comparable<? super K>, T> implements PagedIterable<T> {
+    protected final int batchSize;
+    protected final List<Range<K>> partitions;
+    protected final RangeDataProducer<K, T> producer;
+    protected int timesLimit = 10000;
+    protected int parallelism = 1;
+    /**
+     * 执行扫描任务的线程池，未设置时使用{@link PagerExecutors#perFetch()}
+     */
+    @Nullable
+    protected Executor executor;
+    protected int bufferPages = 2;
+    protected boolean ordered = true;
+    /**
+     * 所有分区共享的限速器
+     */
+    @Nullable
+    protected Throttle throttle;
+
+    protected PartitionedPager(int batchSize, List<Range<K>> partitions, RangeDataProducer<K, T> producer) {
+        this.batchSize = batchSize;
+        this.partitions = ImmutableList.copyOf(partitions);
+        this.producer = producer;
+    }
+
+    /**
+     * 按键边界分区.
+     *
+     * @param batchSize  批处理大小
+     * @param boundaries 升序的键边界，相邻两个边界构成一个左闭右开的分区
+     * @param producer   数据源产生器. 只能返回分区内的数据，一次只能产生batchSize对应的数据量。
+     */
+    public static <K extends Comparable<? super K>, T> PartitionedPager<K, T> of(int batchSize,
+            List<K> boundaries,
+            RangeDataProducer<K, T> producer) {
+        if (boundaries.size() < 2) {
+            throw new IllegalArgumentException("至少需要2个键边界：" + boundaries);
+        }
+        List<Range<K>> partitions = new ArrayList<>(boundaries.size() - 1);
+        for (int i = 1; i < boundaries.size(); i++) {
+            partitions.add(Range.closedOpen(boundaries.get(i - 1), boundaries.get(i)));
+        }
+        return new PartitionedPager<>(batchSize, partitions, producer);
+    }
+
+    /**
+     * 将键区间[min, max)切分为若干分区.
+     *
+     * @param batchSize  批处理大小
+     * @param min        最小键（含）
+     * @param max        最大键（不含）
+     * @param partitions 分区数
+     * @param splitter   切分函数
+     * @param producer   数据源产生器. 只能返回分区内的数据，一次只能产生batchSize对应的数据量。
+     */
+    public static <K extends Comparable<? super K>, T> PartitionedPager<K, T> of(int batchSize,
+            K min,
+            K max,
+            int partitions,
+            KeySplitter<K> splitter,
+            RangeDataProducer<K, T> producer) {
+        return of(batchSize, splitter.split(min, max, partitions), producer);
+    }
+
+    /**
+     * 设置每个分区的最大循环次数，防止死循环。默认次数 10000.
+     */
+    public PartitionedPager<K, T> timesLimit(int limitTimes) {
+        this.timesLimit = limitTimes;
+        return this;
+    }
+
+    /**
+     * 设置并行扫描.
+     *
+     * @param parallelism 同时扫描的最大分区数，通常不超过数据库连接数
+     * @param executor    执行扫描任务的线程池
+     */
+    public PartitionedPager<K, T> parallelism(int parallelism, Executor executor) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行数不能小于1：" + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 设置并行扫描，使用{@link PagerExecutors#perFetch() 默认线程}（Java 21 及以上为虚拟线程）执行扫描任务.
+     *
+     * @param parallelism 同时扫描的最大分区数，通常不超过数据库连接数
+     */
+    public PartitionedPager<K, T> parallelism(int parallelism) {
+        return parallelism(parallelism, PagerExecutors.perFetch());
+    }
+
+    /**
+     * 设置缓冲页数. 按分区顺序输出时为每个分区的缓冲页数，交错输出时为所有分区共享的缓冲页数。默认 2.
+     */
+    public PartitionedPager<K, T> bufferPages(int bufferPages) {
+        if (bufferPages < 1) {
+            throw new IllegalArgumentException("缓冲页数不能小于1：" + bufferPages);
+        }
+        this.bufferPages = bufferPages;
+        return this;
+    }
+
+    /**
+     * 按到达顺序交错输出各分区的数据，不再保证整体有序.
+     */
+    public PartitionedPager<K, T> unordered() {
+        this.ordered = false;
+        return this;
+    }
+
+    /**
+     * 限制所有分区合计的获取速率
+     */
+    public PartitionedPager<K, T> throttle(@Nullable Throttle throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+
+    public List<Range<K>> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * 单个分区的有序分页
+     */
+    protected IteraPager<T> partition(Range<K> range) {
+        IteraPager<T> pager = IteraPager.<T>ofOrdered(batchSize, (p, lastData) -> producer.next(range, p, lastData))
+                .timesLimit(timesLimit);
+        return throttle == null ? pager : pager.throttle(throttle);
+    }
+
+    /**
+     * 迭代开始时启动后台扫描. 提前结束迭代时请调用{@link CloseableIterator#close()}停止扫描。
+     * <p>
+     * 交错输出时每个分区作为一个数据源交给{@link UnionPager}并发扫描。
+     */
+    @Override
+    public CloseableIterator<Collection<T>> iterator() {
+        Executor scanExecutor = executor == null ? PagerExecutors.perFetch() : executor;
+        if (ordered) {
+            return new OrderedScan(scanExecutor);
+        }
+        List<IteraPager<T>> sources = new ArrayList<>(partitions.size());
+        for (Range<K> range : partitions) {
+            sources.add(partition(range));
+        }
+        return UnionPager.of(sources)
+                .parallelism(parallelism, scanExecutor)
+                .maxBufferedPages(bufferPages)
+                .iterator();
+    }
+
+    private class OrderedScan extends AbstractIterator<Collection<T>> implements CloseableIterator<Collection<T>> {
+        private final Executor executor;
+        private final AtomicInteger nextPartition = new AtomicInteger();
+        private final List<PageChannel<Collection<T>>> channels;
+        private volatile boolean cancelled;
+        private boolean started;
+        private int current = 0;
+
+        OrderedScan(Executor executor) {
+            this.executor = executor;
+            channels = new ArrayList<>(partitions.size());
+            for (int i = 0; i < partitions.size(); i++) {
+                channels.add(new PageChannel<>(bufferPages));
+            }
+        }
+
+        /**
+         * 按分区顺序启动下一个分区的扫描，保证正在消费的分区总是已启动.
+         */
+        private void launchNext() {
+            int index = nextPartition.getAndIncrement();
+            if (index >= partitions.size() || cancelled) {
+                return;
+            }
+            PageChannel<Collection<T>> channel = channels.get(index);
+            try {
+                executor.execute(() -> {
+                    try {
+                        scan(index, channel);
+                    } catch (Throwable e) {
+                        channel.fail(e);
+                    } finally {
+                        channel.complete();
+                        launchNext();
+                    }
+                });
+            } catch (RuntimeException e) {
+                channel.fail(e);
+                channel.complete();
+            }
+        }
+
+        private void scan(int index, PageChannel<Collection<T>> channel) {
+            for (Collection<T> page : partition(partitions.get(index))) {
+                if (cancelled || !channel.put(page)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        protected Collection<T> computeNext() {
+            if (!started) {
+                started = true;
+                for (int i = 0; i < parallelism; i++) {
+                    launchNext();
+                }
+            }
+            while (current < channels.size()) {
+                Collection<T> page;
+                try {
+                    page = channels.get(current).take();
+                } catch (RuntimeException e) {
+                    close();
+                    throw e;
+                }
+                if (page != null) {
+                    return page;
+                }
+                current++;
+            }
+            return endOfData();
+        }
+
+        @Override
+        public void close() {
+            cancelled = true;
+            channels.forEach(PageChannel::close);
+        }
+    }
+
+    /**
+     * 键区间切分函数
+     *
+     * @param <K> 排序键类型
+     */
+    @FunctionalInterface
+    public interface KeySplitter<K> {
+        /**
+         * 将[min, max)切分为若干段
+         *
+         * @param min   最小键（含）
+         * @param max   最大键（不含）
+         * @param count 分段数
+         * @return 升序的键边界，首尾分别为min和max
+         */
+        List<K> split(K min, K max, int count);
+
+        /**
+         * 按数值均匀切分long类型的键
+         */
+        static KeySplitter<Long> ofLong() {
+            return (min, max, count) -> {
+                if (count < 1) {
+                    throw new IllegalArgumentException("分段数不能小于1：" + count);
+                }
+                long span = max - min;
+                List<Long> boundaries = new ArrayList<>(count + 1);
+                boundaries.add(min);
+                for (int i = 1; i < count; i++) {
+                    long boundary = min + span / count * i + Math.min(i, span % count);
+                    if (boundary > boundaries.get(boundaries.size() - 1) && boundary < max) {
+                        boundaries.add(boundary);
+                    }
+                }
+                boundaries.add(max);
+                return boundaries;
+            };
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.collect.Range;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * 按键区间获取有序数据的生产者
+ *
+ * @param <K> 排序键类型
+ * @param <T> 数据类型
+ * @author lipei
+ */
+@FunctionalInterface
+public interface RangeDataProducer<K extends Comparable<? super K>, T> {
+    /**
+     * 生产区间内的下一页数据
+     *
+     * @param range      键区间，左闭右开
+     * @param pagination 分页参数
+     * @param lastData   区间内上一批数据的最后一个元素，第一次生产数据时为{@code null}
+     */
+    Collection<T> next(Range<K> range, Pageable pagination, @Nullable T lastData);
+}
@@ -0,0 +1,379 @@
+package io.github.terrason.iterapager;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 获取分页数据的重试、超时与对冲策略.
+ * <p>
+ * 同一分页参数和上一页数据的获取必须是幂等的：失败或超时后按指数退避（带随机抖动）重试，调用线程被中断时不再重试；
+ * 开启对冲时，获取耗时超过最近耗时的分位数（默认p95）仍未返回，则再发起一次相同的获取，采用先返回的结果。
+ * 同一策略可以被多个分页共享，计数器累计所有分页的情况。
+ *
+ * @author lipei
+ */
+public class RetryPolicy {
+    private static final int SAMPLES = 128;
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long timeoutNanos;
+    private final double hedgeQuantile;
+    private final int hedgeMinSamples;
+    private final Predicate<? super Throwable> retryOn;
+    @Nullable
+    private final Executor executor;
+
+    private final long[] latencies = new long[SAMPLES];
+    private long recorded;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.timeoutNanos = builder.timeout == null ? 0 : builder.timeout.toNanos();
+        this.hedgeQuantile = builder.hedgeQuantile;
+        this.hedgeMinSamples = builder.hedgeMinSamples;
+        this.retryOn = builder.retryOn;
+        this.executor = timeoutNanos > 0 || hedgeQuantile > 0
+                ? builder.executor == null ? PagerExecutors.perFetch() : builder.executor
+                : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 包装生产者
+     */
+    public <M> PageProducer<M> wrap(PageProducer<M> producer) {
+        return (pageable, lastData) -> next(producer, pageable, lastData);
+    }
+
+    private <M> PageProducer.Elem<M> next(PageProducer<M> producer, Pageable pageable, @Nullable M lastData) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executor == null ? fetch(producer, pageable, lastData) : fetchAsync(producer, pageable, lastData);
+            } catch (RuntimeException e) {
+                if (interrupted(e)) {
+                    //调用线程被中断，不再重试
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                if (attempt >= maxAttempts || !retryOn.test(e)) {
+                    failures.increment();
+                    throw e;
+                }
+            }
+            retries.increment();
+            sleep(backoffNanos(attempt));
+        }
+    }
+
+    /**
+     * 调用线程是否被中断：中断标记仍在，或在调用线程中获取时生产者把{@link InterruptedException}包装后抛出（标记已被清除）
+     */
+    private boolean interrupted(RuntimeException e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        if (executor != null) {
+            //线程池中的获取被中断是超时或对冲取消造成的，与调用线程无关
+            return false;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <M> PageProducer.Elem<M> fetch(PageProducer<M> producer, Pageable pageable, @Nullable M lastData) {
+        long start = System.nanoTime();
+        PageProducer.Elem<M> elements = producer.next(pageable, lastData);
+        record(System.nanoTime() - start);
+        return elements;
+    }
+
+    /**
+     * 在线程池中获取，等待超时或超过对冲时间时发起对冲请求.
+     */
+    private <M> PageProducer.Elem<M> fetchAsync(PageProducer<M> producer, Pageable pageable, @Nullable M lastData) {
+        long start = System.nanoTime();
+        long deadline = timeoutNanos > 0 ? start + timeoutNanos : Long.MAX_VALUE;
+        List<CompletableFuture<PageProducer.Elem<M>>> pending = new ArrayList<>(2);
+        CompletableFuture<PageProducer.Elem<M>> primary = submit(producer, pageable, lastData);
+        pending.add(primary);
+        long hedgeAt = hedgeDelayNanos();
+        boolean hedged = hedgeAt <= 0;
+        RuntimeException failure = null;
+        try {
+            while (!pending.isEmpty()) {
+                long now = System.nanoTime();
+                long waitUntil = hedged ? deadline : Math.min(deadline, start + hedgeAt);
+                CompletableFuture<PageProducer.Elem<M>> done = awaitAny(pending, waitUntil - now);
+                if (done == null) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        timeouts.increment();
+                        throw new IllegalStateException(String.format("获取分页数据超时（%dms）：%s",
+                                TimeUnit.NANOSECONDS.toMillis(timeoutNanos), pageable));
+                    }
+                    hedged = true;
+                    hedges.increment();
+                    pending.add(submit(producer, pageable, lastData));
+                    continue;
+                }
+                pending.remove(done);
+                try {
+                    PageProducer.Elem<M> elements = Concurrents.await(done);
+                    if (done != primary) {
+                        hedgeWins.increment();
+                    }
+                    return elements;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            throw failure;
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * 在线程池中执行的一次获取. 取消时中断正在执行的线程，超时或对冲失败的获取不会继续占用数据库连接等资源。
+     */
+    private <M> CompletableFuture<PageProducer.Elem<M>> submit(PageProducer<M> producer, Pageable pageable, @Nullable M lastData) {
+        //noinspection ConstantConditions
+        return Concurrents.supplyInterruptibly(() -> fetch(producer, pageable, lastData), executor);
+    }
+
+    /**
+     * 等待任意一个完成
+     *
+     * @return 已完成的任务，超时返回{@code null}
+     */
+    @Nullable
+    private static <V> CompletableFuture<V> awaitAny(List<CompletableFuture<V>> futures, long nanos) {
+        for (CompletableFuture<V> future : futures) {
+            if (future.isDone()) {
+                return future;
+            }
+        }
+        if (nanos <= 0) {
+            return null;
+        }
+        try {
+            CompletableFuture.anyOf(futures.toArray(new CompletableFuture<?>[0])).get(nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待分页数据时线程被中断", e);
+        } catch (ExecutionException | TimeoutException e) {
+            //由下面的检查决定
+        }
+        for (CompletableFuture<V> future : futures) {
+            if (future.isDone()) {
+                return future;
+            }
+        }
+        return null;
+    }
+
+    private long backoffNanos(int attempt) {
+        long backoff = initialBackoffNanos << Math.min(attempt - 1, 30);
+        if (backoff <= 0 || backoff > maxBackoffNanos) {
+            backoff = maxBackoffNanos;
+        }
+        //等量抖动：[backoff/2, backoff]
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待重试时线程被中断", e);
+        }
+    }
+
+    private synchronized void record(long nanos) {
+        latencies[(int) (recorded++ % SAMPLES)] = nanos;
+    }
+
+    /**
+     * 对冲等待时间：最近耗时的分位数，样本不足或未开启对冲时为0
+     */
+    private long hedgeDelayNanos() {
+        if (hedgeQuantile <= 0) {
+            return 0;
+        }
+        long[] samples;
+        synchronized (this) {
+            if (recorded < hedgeMinSamples) {
+                return 0;
+            }
+            samples = Arrays.copyOf(latencies, (int) Math.min(recorded, SAMPLES));
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(hedgeQuantile * samples.length) - 1;
+        return Math.max(1, samples[Math.max(0, Math.min(index, samples.length - 1))]);
+    }
+
+    /**
+     * 重试次数
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * 超时次数
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * 发起对冲请求的次数
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * 对冲请求先于原请求返回的次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * 重试后仍失败的次数
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("重试%d次，超时%d次，对冲%d次（胜出%d次），失败%d次",
+                getRetryCount(), getTimeoutCount(), getHedgeCount(), getHedgeWinCount(), getFailureCount());
+    }
+
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        @Nullable
+        private Duration timeout;
+        private double hedgeQuantile;
+        private int hedgeMinSamples;
+        private Predicate<? super Throwable> retryOn = e -> !(e instanceof UnsupportedOperationException);
+        @Nullable
+        private Executor executor;
+
+        private Builder() {
+        }
+
+        /**
+         * 最多尝试次数（含第一次），默认 3
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("尝试次数不能小于1：" + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * 退避时间：第n次重试前等待 initial * 2^(n-1)，不超过max，实际等待其一半到全部之间的随机时长。默认 100ms 至 10s。
+         */
+        public Builder backoff(Duration initial, Duration max) {
+            if (initial.isNegative() || max.compareTo(initial) < 0) {
+                throw new IllegalArgumentException("退避时间不正确：" + initial + " ~ " + max);
+            }
+            this.initialBackoff = initial;
+            this.maxBackoff = max;
+            return this;
+        }
+
+        /**
+         * 每次获取的超时时间，超时视为失败并重试. 生产者在线程池中执行，超时后执行线程会被中断，
+         * 生产者需要响应中断（如JDBC驱动的{@code Statement.cancel}或可中断的IO）才能及时释放连接。
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout.isZero() || timeout.isNegative()) {
+                throw new IllegalArgumentException("超时时间必须大于0：" + timeout);
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 开启对冲：获取耗时超过最近耗时的p95时，再发起一次相同的获取.
+         */
+        public Builder hedge() {
+            return hedge(0.95, 20);
+        }
+
+        /**
+         * 开启对冲.
+         *
+         * @param quantile   耗时分位，如0.95
+         * @param minSamples 至少记录多少次耗时后才开始对冲
+         */
+        public Builder hedge(double quantile, int minSamples) {
+            if (quantile <= 0 || quantile >= 1) {
+                throw new IllegalArgumentException("分位必须在0与1之间：" + quantile);
+            }
+            this.hedgeQuantile = quantile;
+            this.hedgeMinSamples = Math.max(1, minSamples);
+            return this;
+        }
+
+        /**
+         * 哪些异常需要重试，默认除{@link UnsupportedOperationException}（生产者返回数据过多）外都重试
+         */
+        public Builder retryOn(Predicate<? super Throwable> retryOn) {
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        /**
+         * 超时控制与对冲请求使用的线程池，未设置时使用{@link PagerExecutors#perFetch()}
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
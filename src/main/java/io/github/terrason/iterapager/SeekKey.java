@@ -0,0 +1,424 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 有序分页的复合排序键，如 {@code (created_at desc, id asc)}.
+ * <p>
+ * 从上一页最后一个元素提取{@link Cursor 游标}，生产者按游标查询"排在游标之后"的数据：
+ * <pre>{@code
+ * SeekKey<Order> key = SeekKey.<Order>builder()
+ *         .desc("created_at", Order::getCreatedAt)
+ *         .tieBreaker("id", Order::getId)
+ *         .build();
+ * IteraPager<Order> pager = IteraPager.ofSeek(500, key, (pageable, cursor) -> cursor == null
+ *         ? jdbc.query("select * from orders order by " + key.orderBy() + " limit ?", pageable.getLimit())
+ *         : jdbc.query("select * from orders where " + key.predicate() + " order by " + key.orderBy() + " limit ?",
+ *                 cursor.parameters(), pageable.getLimit()));
+ * }</pre>
+ * 最后一列必须唯一（通常为主键），否则排序列的值相同的数据在页边界会被跳过或重复。
+ *
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+public final class SeekKey<T> {
+    private final List<Column<T>> columns;
+
+    private SeekKey(List<Column<T>> columns) {
+        this.columns = ImmutableList.copyOf(columns);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public List<Column<T>> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 提取元素的游标
+     *
+     * @throws IllegalArgumentException 排序列的值为{@code null}
+     */
+    public Cursor cursorOf(T element) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            Column<T> column = columns.get(i);
+            Object value = column.extractor.apply(element);
+            if (value == null) {
+                throw new IllegalArgumentException("排序列[" + column.name + "]的值不能为null：" + element);
+            }
+            values[i] = value;
+        }
+        return new Cursor(values);
+    }
+
+    /**
+     * 按排序方向比较元素与游标
+     *
+     * @return 负数、零、正数分别表示元素排在游标之前、与游标相同、排在游标之后
+     */
+    public int compare(T element, Cursor cursor) {
+        checkColumns(cursor);
+        for (int i = 0; i < columns.size(); i++) {
+            Column<T> column = columns.get(i);
+            @SuppressWarnings("unchecked")
+            Comparable<Object> value = (Comparable<Object>) column.extractor.apply(element);
+            int c = value.compareTo(cursor.values[i]);
+            if (c != 0) {
+                return column.descending ? -c : c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 元素是否排在游标之后，可用于内存中的数据源
+     */
+    public boolean isAfter(T element, @Nullable Cursor cursor) {
+        return cursor == null || compare(element, cursor) > 0;
+    }
+
+    /**
+     * 查询排在游标之后的数据的SQL条件，参数为{@link Cursor#parameters()}.
+     * <p>
+     * 展开为{@code (a > ?) or (a = ? and b > ?)}的形式，各列排序方向不同时也适用。
+     * 能否用上复合索引取决于数据库的优化器，很多数据库只对首列的范围条件使用索引；
+     * 各列排序方向相同且数据库支持时，行值比较{@code (a, b) > (?, ?)}更容易使用索引。
+     */
+    public String predicate() {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(" or ");
+            }
+            sql.append('(');
+            for (int j = 0; j < i; j++) {
+                sql.append(columns.get(j).name).append(" = ? and ");
+            }
+            Column<T> column = columns.get(i);
+            sql.append(column.name).append(column.descending ? " < ?" : " > ?").append(')');
+        }
+        return columns.size() == 1 ? sql.substring(1, sql.length() - 1) : "(" + sql + ")";
+    }
+
+    /**
+     * 排序子句，如{@code created_at desc, id asc}
+     */
+    public String orderBy() {
+        StringBuilder sql = new StringBuilder();
+        for (Column<T> column : columns) {
+            if (sql.length() > 0) {
+                sql.append(", ");
+            }
+            sql.append(column.name).append(column.descending ? " desc" : " asc");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 还原{@link Cursor#encode()}的结果
+     *
+     * @throws IllegalArgumentException 格式错误或列数不一致
+     */
+    public Cursor decode(String encoded) {
+        Cursor cursor = Cursor.decode(encoded);
+        checkColumns(cursor);
+        return cursor;
+    }
+
+    private void checkColumns(Cursor cursor) {
+        if (cursor.values.length != columns.size()) {
+            throw new IllegalArgumentException(String.format("游标有%d列，排序键有%d列", cursor.values.length, columns.size()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return orderBy();
+    }
+
+    /**
+     * 排序列
+     *
+     * @param <T> 列表元素类型
+     */
+    public static final class Column<T> {
+        private final String name;
+        private final Function<? super T, ? extends Comparable<?>> extractor;
+        private final boolean descending;
+
+        private Column(String name, Function<? super T, ? extends Comparable<?>> extractor, boolean descending) {
+            this.name = name;
+            this.extractor = extractor;
+            this.descending = descending;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDescending() {
+            return descending;
+        }
+    }
+
+    /**
+     * 游标：上一页最后一个元素各排序列的值. 可以序列化，或通过{@link #encode()}转为紧凑的字符串保存。
+     */
+    public static final class Cursor implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+        private final Object[] values;
+
+        private Cursor(Object[] values) {
+            this.values = values;
+        }
+
+        /**
+         * 各排序列的值
+         */
+        public List<Object> values() {
+            return Collections.unmodifiableList(Arrays.asList(values));
+        }
+
+        public Object get(int column) {
+            return values[column];
+        }
+
+        /**
+         * {@link SeekKey#predicate()}的参数
+         */
+        public List<Object> parameters() {
+            List<Object> parameters = new ArrayList<>(values.length * (values.length + 1) / 2);
+            for (int i = 0; i < values.length; i++) {
+                parameters.addAll(Arrays.asList(values).subList(0, i + 1));
+            }
+            return parameters;
+        }
+
+        /**
+         * 紧凑的字符串形式（URL安全的Base64）. 支持数值、字符串、日期时间、布尔和UUID类型的列。
+         *
+         * @throws IllegalArgumentException 列的类型不支持
+         */
+        public String encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(values.length);
+                for (Object value : values) {
+                    write(out, value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return ENCODER.encodeToString(bytes.toByteArray());
+        }
+
+        static Cursor decode(String encoded) {
+            byte[] bytes;
+            try {
+                bytes = Base64.getUrlDecoder().decode(encoded);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("游标格式错误：" + encoded, e);
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                Object[] values = new Object[in.readUnsignedByte()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = read(in);
+                }
+                if (in.available() > 0) {
+                    throw new IllegalArgumentException("游标格式错误：" + encoded);
+                }
+                return new Cursor(values);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("游标格式错误：" + encoded, e);
+            }
+        }
+
+        private static void write(DataOutputStream out, Object value) throws IOException {
+            if (value instanceof Long) {
+                out.writeByte('J');
+                out.writeLong((Long) value);
+            } else if (value instanceof Integer) {
+                out.writeByte('I');
+                out.writeInt((Integer) value);
+            } else if (value instanceof String) {
+                out.writeByte('S');
+                out.writeUTF((String) value);
+            } else if (value instanceof BigDecimal) {
+                out.writeByte('N');
+                out.writeUTF(value.toString());
+            } else if (value instanceof Instant) {
+                out.writeByte('T');
+                out.writeLong(((Instant) value).getEpochSecond());
+                out.writeInt(((Instant) value).getNano());
+            } else if (value instanceof LocalDateTime) {
+                out.writeByte('L');
+                out.writeUTF(value.toString());
+            } else if (value instanceof LocalDate) {
+                out.writeByte('D');
+                out.writeLong(((LocalDate) value).toEpochDay());
+            } else if (value instanceof Timestamp) {
+                out.writeByte('P');
+                out.writeLong(((Timestamp) value).getTime());
+                out.writeInt(((Timestamp) value).getNanos());
+            } else if (value instanceof Date) {
+                out.writeByte('M');
+                out.writeLong(((Date) value).getTime());
+            } else if (value instanceof Boolean) {
+                out.writeByte('Z');
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof UUID) {
+                out.writeByte('U');
+                out.writeLong(((UUID) value).getMostSignificantBits());
+                out.writeLong(((UUID) value).getLeastSignificantBits());
+            } else {
+                throw new IllegalArgumentException("不支持编码的游标类型：" + value.getClass().getName());
+            }
+        }
+
+        private static Object read(DataInputStream in) throws IOException {
+            int type = in.readUnsignedByte();
+            switch (type) {
+                case 'J':
+                    return in.readLong();
+                case 'I':
+                    return in.readInt();
+                case 'S':
+                    return in.readUTF();
+                case 'N':
+                    return new BigDecimal(in.readUTF());
+                case 'T':
+                    return Instant.ofEpochSecond(in.readLong(), in.readInt());
+                case 'L':
+                    return LocalDateTime.parse(in.readUTF());
+                case 'D':
+                    return LocalDate.ofEpochDay(in.readLong());
+                case 'P':
+                    Timestamp timestamp = new Timestamp(in.readLong());
+                    timestamp.setNanos(in.readInt());
+                    return timestamp;
+                case 'M':
+                    return new Date(in.readLong());
+                case 'Z':
+                    return in.readBoolean();
+                case 'U':
+                    return new UUID(in.readLong(), in.readLong());
+                default:
+                    throw new IOException("未知的游标类型：" + (char) type);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Cursor && Arrays.equals(values, ((Cursor) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(values);
+        }
+    }
+
+    /**
+     * 按顺序添加排序列，最后以{@link #tieBreaker}添加唯一列.
+     *
+     * @param <T> 列表元素类型
+     */
+    public static final class Builder<T> {
+        private final List<Column<T>> columns = new ArrayList<>();
+        private boolean unique;
+
+        private Builder() {
+        }
+
+        /**
+         * 升序排列的列
+         *
+         * @param name      列名，用于生成SQL
+         * @param extractor 从元素中取列的值
+         */
+        public Builder<T> asc(String name, Function<? super T, ? extends Comparable<?>> extractor) {
+            return add(name, extractor, false);
+        }
+
+        /**
+         * 降序排列的列
+         *
+         * @param name      列名，用于生成SQL
+         * @param extractor 从元素中取列的值
+         */
+        public Builder<T> desc(String name, Function<? super T, ? extends Comparable<?>> extractor) {
+            return add(name, extractor, true);
+        }
+
+        /**
+         * 升序排列的唯一列，如主键. 必须是最后一列。
+         */
+        public Builder<T> tieBreaker(String name, Function<? super T, ? extends Comparable<?>> extractor) {
+            add(name, extractor, false);
+            unique = true;
+            return this;
+        }
+
+        /**
+         * 降序排列的唯一列. 必须是最后一列。
+         */
+        public Builder<T> tieBreakerDesc(String name, Function<? super T, ? extends Comparable<?>> extractor) {
+            add(name, extractor, true);
+            unique = true;
+            return this;
+        }
+
+        private Builder<T> add(String name, Function<? super T, ? extends Comparable<?>> extractor, boolean descending) {
+            if (unique) {
+                throw new IllegalStateException("唯一列必须是最后一列：" + name);
+            }
+            if (columns.size() >= 255) {
+                throw new IllegalStateException("排序列不能超过255列");
+            }
+            columns.add(new Column<>(name, extractor, descending));
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException 未添加唯一列
+         */
+        public SeekKey<T> build() {
+            if (!unique) {
+                throw new IllegalStateException("缺少唯一的排序列，请以tieBreaker()添加主键等唯一列");
+            }
+            return new SeekKey<>(columns);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.collect.AbstractIterator;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 跳过、限制条数、按条件截止的分页视图，尽量把条件下推到传给生产者的分页参数中.
+ * <p>
+ * 按偏移量分页时从跳过的条数所在的页开始获取，只在内存中丢弃该页前面不足一页的数据；
+ * 有序分页无法按偏移量定位，跳过的数据仍需获取，可用{@link #after(Object)}从指定元素之后开始。
+ * 最后一次获取按剩余条数缩小{@link Pageable#getLimit()}，生产者应使用{@link Pageable#getOffset()}计算偏移量，
+ * 忽略该条数返回整页时多出的数据在内存中丢弃。
+ * <p>
+ * 依次应用 skip、limit、whileTrue，与设置顺序无关。视图逐页获取，不使用原分页的预取、动态调整每页大小和断点设置。
+ *
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+public class SlicedPager<T> implements PagedIterable<T> {
+    protected final IteraPager<T> pager;
+    protected int skip;
+    protected long limit = Long.MAX_VALUE;
+    @Nullable
+    protected Predicate<? super T> whileTrue;
+    /**
+     * 有序分页第一次获取时作为上一页的数据，{@code null}表示从头开始
+     */
+    @Nullable
+    protected Collection<T> start;
+
+    protected SlicedPager(IteraPager<T> pager) {
+        if (pager.isPageableHeld()) {
+            throw new UnsupportedOperationException("外部传入的分页参数不支持跳过和限制条数");
+        }
+        this.pager = pager;
+    }
+
+    /**
+     * 跳过前n条数据
+     */
+    public SlicedPager<T> skip(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("跳过的条数不能小于0：" + n);
+        }
+        this.skip = n;
+        return this;
+    }
+
+    /**
+     * 最多返回n条数据
+     */
+    public SlicedPager<T> limit(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("限制的条数不能小于0：" + n);
+        }
+        this.limit = n;
+        return this;
+    }
+
+    /**
+     * 遇到第一个不满足条件的元素时结束，不再获取后续页. 适用于按条件所在字段排序的数据。
+     */
+    public SlicedPager<T> whileTrue(Predicate<? super T> predicate) {
+        this.whileTrue = predicate;
+        return this;
+    }
+
+    /**
+     * 有序分页从指定元素之后开始，第一次获取时以该元素作为上一页的最后一个元素.
+     *
+     * @param element 游标元素，如断点处的最后一条数据
+     */
+    public SlicedPager<T> after(T element) {
+        if (!pager.ordered) {
+            throw new UnsupportedOperationException("按偏移量分页请使用skip定位");
+        }
+        this.start = Collections.singletonList(element);
+        return this;
+    }
+
+    @Override
+    public Iterator<Collection<T>> iterator() {
+        return new Slice();
+    }
+
+    private final class Slice extends AbstractIterator<Collection<T>> {
+        private final OffsetQuery query = new OffsetQuery(pager.batchSize);
+        private final int startOffset;
+        /**
+         * 还需丢弃的条数
+         */
+        private int drop;
+        private long remaining = limit;
+        @Nullable
+        private Collection<T> lastData = start;
+        private int times;
+        private long total;
+        @Nullable
+        private PagerListener.EndReason endReason;
+
+        Slice() {
+            if (pager.ordered) {
+                startOffset = 0;
+                drop = skip;
+            } else {
+                int page = skip / pager.batchSize;
+                startOffset = page * pager.batchSize;
+                drop = skip - startOffset;
+                query.seek(page + 1, startOffset);
+            }
+        }
+
+        @Override
+        protected Collection<T> computeNext() {
+            while (endReason == null) {
+                if (remaining == 0) {
+                    end(PagerListener.EndReason.LIMIT_REACHED);
+                    break;
+                }
+                Collection<T> page = fetchNext();
+                if (!page.isEmpty()) {
+                    return page;
+                }
+            }
+            return endOfData();
+        }
+
+        /**
+         * 获取下一页并裁剪，整页都被跳过时返回空集合
+         */
+        private Collection<T> fetchNext() {
+            if (times > pager.timesLimit) {
+                throw ModelPager.exceedTimesLimit(pager.timesLimit);
+            }
+            if (times > 0) {
+                query.next();
+            }
+            int requestLimit = remaining >= pager.batchSize ? pager.batchSize : (int) Math.min(pager.batchSize, drop + remaining);
+            query.setLimit(requestLimit);
+            PageProducer.Elem<Collection<T>> elements = pager.fetch(query, lastData, ++times);
+            int size = elements.getSize();
+            if (size == 0) {
+                return end(PagerListener.EndReason.EMPTY_PAGE);
+            }
+            if (size > pager.batchSize) {
+                throw ModelPager.exceedBatchSize(size, pager.batchSize);
+            }
+            total += size;
+            Collection<T> data = elements.getData();
+            lastData = data;
+            long totalLimit = elements.total();
+            if (size < requestLimit) {
+                endReason = PagerListener.EndReason.SHORT_PAGE;
+            } else if (ModelPager.isLastPage(elements)) {
+                endReason = PagerListener.EndReason.NO_LOOKAHEAD_ROW;
+            } else if (totalLimit > 0 && totalLimit <= startOffset + total) {
+                endReason = PagerListener.EndReason.TOTAL_REACHED;
+            }
+            Collection<T> page = slice(data);
+            PagerListener l = pager.listener;
+            if (l != null) {
+                l.onPage(times, page.size(), total);
+                if (endReason != null) {
+                    l.onEnd(endReason, times, total);
+                }
+            }
+            return page;
+        }
+
+        /**
+         * 丢弃跳过的数据，截取限制的条数，遇到不满足条件的元素时截止
+         */
+        private Collection<T> slice(Collection<T> data) {
+            int size = data.size();
+            int from = Math.min(drop, size);
+            drop -= from;
+            int to = from + (int) Math.min(size - from, remaining);
+            if (whileTrue != null) {
+                int i = 0;
+                for (T element : data) {
+                    if (i >= to) {
+                        break;
+                    }
+                    if (i >= from && !whileTrue.test(element)) {
+                        to = i;
+                        endReason = PagerListener.EndReason.PREDICATE_FAILED;
+                        break;
+                    }
+                    i++;
+                }
+            }
+            remaining -= to - from;
+            if (from == 0 && to == size) {
+                return data;
+            }
+            if (data instanceof List) {
+                return ((List<T>) data).subList(from, to);
+            }
+            List<T> sliced = new ArrayList<>(to - from);
+            int i = 0;
+            for (T element : data) {
+                if (i >= to) {
+                    break;
+                }
+                if (i >= from) {
+                    sliced.add(element);
+                }
+                i++;
+            }
+            return sliced;
+        }
+
+        private Collection<T> end(PagerListener.EndReason reason) {
+            endReason = reason;
+            PagerListener l = pager.listener;
+            if (l != null) {
+                l.onEnd(reason, times, total);
+            }
+            return Collections.emptyList();
+        }
+    }
+}
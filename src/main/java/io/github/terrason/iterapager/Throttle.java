@@ -0,0 +1,199 @@
+package io.github.terrason.iterapager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限制调用生产者的速率，避免批处理任务占满数据库.
+ * <p>
+ * 按通用信元速率算法（GCRA）发放令牌：按页限速时每次获取前消耗1个令牌；按条数限速时获取后按返回的条数消耗，
+ * 由下一次获取等待补足。突发容量为{@code burst}时允许比理论时间提前{@code burst / rate}秒，
+ * 即空闲后最多额外{@code burst}个令牌不需要等待；为0时相邻两次获取至少间隔{@code 1 / rate}秒。
+ * AIMD模式按每页耗时自动调整每秒页数：耗时超过阈值时减半，低于阈值时逐步增加。
+ * <p>
+ * 同一限速器可以被多个分页、预取和并发获取的多个线程共享，共同受同一速率限制。
+ *
+ * @author lipei
+ */
+public class Throttle {
+    private final boolean rows;
+    private final int burst;
+    private final long latencyThresholdNanos;
+    private final double minRate;
+    private final double maxRate;
+    private final double increase;
+
+    private double rate;
+    /**
+     * 理论到达时间：不允许突发时下一个令牌可用的时间
+     */
+    private long nextFreeAt = System.nanoTime();
+    private long lastDecreaseAt;
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private Throttle(boolean rows, int burst, double rate, long latencyThresholdNanos, double minRate, double maxRate) {
+        this.rows = rows;
+        this.burst = burst;
+        this.rate = rate;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increase = (maxRate - minRate) / 20;
+        this.lastDecreaseAt = nextFreeAt - latencyThresholdNanos - 1;
+    }
+
+    /**
+     * 每秒最多获取的页数，不允许突发
+     */
+    public static Throttle pagesPerSecond(double pages) {
+        return pagesPerSecond(pages, 0);
+    }
+
+    /**
+     * 每秒最多获取的页数.
+     *
+     * @param pages 每秒页数
+     * @param burst 空闲后最多额外不等待获取的页数
+     */
+    public static Throttle pagesPerSecond(double pages, int burst) {
+        checkRate(pages);
+        checkBurst(burst);
+        return new Throttle(false, burst, pages, 0, pages, pages);
+    }
+
+    /**
+     * 每秒最多获取的数据条数，不允许突发
+     */
+    public static Throttle rowsPerSecond(double rows) {
+        return rowsPerSecond(rows, 0);
+    }
+
+    /**
+     * 每秒最多获取的数据条数.
+     *
+     * @param rows  每秒条数
+     * @param burst 空闲后最多额外不等待获取的条数
+     */
+    public static Throttle rowsPerSecond(double rows, int burst) {
+        checkRate(rows);
+        checkBurst(burst);
+        return new Throttle(true, burst, rows, 0, rows, rows);
+    }
+
+    /**
+     * 按每页耗时自动调整每秒页数，从最大速率开始，不允许突发.
+     *
+     * @param latencyThreshold 耗时阈值，超过时速率减半，低于时每页增加{@code (max - min) / 20}
+     * @param minPagesPerSecond 最小每秒页数
+     * @param maxPagesPerSecond 最大每秒页数
+     */
+    public static Throttle aimd(Duration latencyThreshold, double minPagesPerSecond, double maxPagesPerSecond) {
+        checkRate(minPagesPerSecond);
+        if (maxPagesPerSecond < minPagesPerSecond) {
+            throw new IllegalArgumentException("最大速率不能小于最小速率：" + minPagesPerSecond + " ~ " + maxPagesPerSecond);
+        }
+        if (latencyThreshold.isZero() || latencyThreshold.isNegative()) {
+            throw new IllegalArgumentException("耗时阈值必须大于0：" + latencyThreshold);
+        }
+        return new Throttle(false, 0, maxPagesPerSecond, latencyThreshold.toNanos(), minPagesPerSecond, maxPagesPerSecond);
+    }
+
+    private static void checkRate(double rate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("速率必须大于0：" + rate);
+        }
+    }
+
+    private static void checkBurst(int burst) {
+        if (burst < 0) {
+            throw new IllegalArgumentException("突发容量不能小于0：" + burst);
+        }
+    }
+
+    /**
+     * 包装生产者
+     */
+    public <M> PageProducer<M> wrap(PageProducer<M> producer) {
+        return (pageable, lastData) -> {
+            sleep(reserve(rows ? 0 : 1));
+            long start = System.nanoTime();
+            PageProducer.Elem<M> elements = producer.next(pageable, lastData);
+            if (rows) {
+                reserve(elements.getSize());
+            } else if (latencyThresholdNanos > 0) {
+                adjust(System.nanoTime() - start);
+            }
+            return elements;
+        };
+    }
+
+    /**
+     * 预约令牌
+     *
+     * @return 需要等待的时长
+     */
+    private synchronized long reserve(int permits) {
+        long now = System.nanoTime();
+        long tolerance = (long) (burst * 1e9 / rate);
+        long start = Math.max(now, nextFreeAt - tolerance);
+        nextFreeAt = Math.max(nextFreeAt, start) + (long) (permits * 1e9 / rate);
+        return start - now;
+    }
+
+    private synchronized void adjust(long latencyNanos) {
+        long now = System.nanoTime();
+        if (latencyNanos > latencyThresholdNanos) {
+            //同时在途的多页只减一次
+            if (now - lastDecreaseAt > latencyThresholdNanos) {
+                rate = Math.max(minRate, rate / 2);
+                lastDecreaseAt = now;
+            }
+        } else {
+            rate = Math.min(maxRate, rate + increase);
+        }
+    }
+
+    private void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        throttled.increment();
+        waitNanos.add(nanos);
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待限速时线程被中断", e);
+        }
+    }
+
+    /**
+     * 当前速率：按条数限速时为每秒条数，否则为每秒页数
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * 因限速而等待的次数
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * 因限速而等待的总时长
+     */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("限速%.1f%s/秒，等待%d次共%dms", getRate(), rows ? "条" : "页",
+                getThrottledCount(), TimeUnit.NANOSECONDS.toMillis(getWaitNanos()));
+    }
+}
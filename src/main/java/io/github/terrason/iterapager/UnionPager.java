@@ -0,0 +1,181 @@
+package io.github.terrason.iterapager;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多个数据源的分页（如每个租户一个{@link IteraPager}）并发扫描，按到达顺序交错输出，不保证顺序.
+ * <p>
+ * 最多同时扫描parallelism个数据源，一个数据源扫描完成后再开始下一个。
+ * 所有数据源共享一个有界缓冲，缓冲满时各数据源暂停获取。
+ * 任一数据源失败时，消费者收到第一个异常，其他数据源在获取完当前页后停止。
+ *
+ * @param <T> 列表元素类型
+ * @author lipei
+ */
+public class UnionPager<T> implements PagedIterable<T> {
+    protected final List<Iterable<? extends Collection<T>>> sources;
+    protected int parallelism = 1;
+    /**
+     * 执行扫描任务的线程池，未设置时使用{@link PagerExecutors#perFetch()}
+     */
+    @Nullable
+    protected Executor executor;
+    protected int maxBufferedPages = 2;
+
+    protected UnionPager(List<? extends Iterable<? extends Collection<T>>> sources) {
+        this.sources = ImmutableList.copyOf(sources);
+    }
+
+    /**
+     * 合并多个数据源的分页.
+     *
+     * @param sources 数据源的分页，如{@link IteraPager}、{@link PartitionedPager}
+     */
+    public static <T> UnionPager<T> of(List<? extends Iterable<? extends Collection<T>>> sources) {
+        return new UnionPager<>(sources);
+    }
+
+    /**
+     * 设置并发扫描.
+     *
+     * @param parallelism 同时扫描的最大数据源数
+     * @param executor    执行扫描任务的线程池
+     */
+    public UnionPager<T> parallelism(int parallelism, Executor executor) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行数不能小于1：" + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 设置并发扫描，使用{@link PagerExecutors#perFetch() 默认线程}（Java 21 及以上为虚拟线程）执行扫描任务.
+     *
+     * @param parallelism 同时扫描的最大数据源数
+     */
+    public UnionPager<T> parallelism(int parallelism) {
+        return parallelism(parallelism, PagerExecutors.perFetch());
+    }
+
+    /**
+     * 所有数据源共享的缓冲页数，默认 2. 内存中最多同时存在 {@code maxBufferedPages + parallelism} 页数据。
+     */
+    public UnionPager<T> maxBufferedPages(int pages) {
+        if (pages < 1) {
+            throw new IllegalArgumentException("缓冲页数不能小于1：" + pages);
+        }
+        this.maxBufferedPages = pages;
+        return this;
+    }
+
+    public List<Iterable<? extends Collection<T>>> getSources() {
+        return sources;
+    }
+
+    /**
+     * 迭代开始时启动后台扫描. 提前结束迭代时请调用{@link CloseableIterator#close()}停止扫描。
+     */
+    @Override
+    public CloseableIterator<Collection<T>> iterator() {
+        return new Scan(executor == null ? PagerExecutors.perFetch() : executor);
+    }
+
+    private final class Scan extends AbstractIterator<Collection<T>> implements CloseableIterator<Collection<T>> {
+        private final Executor executor;
+        private final PageChannel<Collection<T>> channel = new PageChannel<>(maxBufferedPages);
+        private final AtomicInteger nextSource = new AtomicInteger();
+        private final AtomicInteger remaining = new AtomicInteger(sources.size());
+        private volatile boolean cancelled;
+        private boolean started;
+
+        Scan(Executor executor) {
+            this.executor = executor;
+        }
+
+        private void launchNext() {
+            int index = nextSource.getAndIncrement();
+            if (index >= sources.size()) {
+                return;
+            }
+            if (cancelled) {
+                done();
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        scan(sources.get(index));
+                    } catch (Throwable e) {
+                        cancelled = true;
+                        channel.fail(e);
+                    } finally {
+                        done();
+                        launchNext();
+                    }
+                });
+            } catch (RuntimeException e) {
+                cancelled = true;
+                channel.fail(e);
+                done();
+            }
+        }
+
+        private void done() {
+            if (remaining.decrementAndGet() == 0) {
+                channel.complete();
+            }
+        }
+
+        private void scan(Iterable<? extends Collection<T>> source) {
+            Iterator<? extends Collection<T>> pages = source.iterator();
+            try {
+                while (!cancelled && pages.hasNext()) {
+                    if (!channel.put(pages.next())) {
+                        return;
+                    }
+                }
+            } finally {
+                if (pages instanceof CloseableIterator) {
+                    ((CloseableIterator<?>) pages).close();
+                }
+            }
+        }
+
+        @Override
+        protected Collection<T> computeNext() {
+            if (sources.isEmpty()) {
+                return endOfData();
+            }
+            if (!started) {
+                started = true;
+                for (int i = 0; i < parallelism; i++) {
+                    launchNext();
+                }
+            }
+            Collection<T> page;
+            try {
+                page = channel.take();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            return page == null ? endOfData() : page;
+        }
+
+        @Override
+        public void close() {
+            cancelled = true;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.terrason.iterapager;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 并发分页的默认线程.
+ * <p>
+ * Java 21 及以上版本运行时每次获取使用一个虚拟线程，阻塞式的生产者不会占用平台线程。
+ *
+ * @author lipei
+ */
+public final class PagerExecutors {
+    private static final Executor PER_FETCH = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("iterapager-fetch-", 0).factory());
+
+    private PagerExecutors() {
+    }
+
+    /**
+     * 执行分页获取任务的默认线程池. 并发数由预取深度、并发数等参数控制，线程池本身不限制。
+     */
+    public static Executor perFetch() {
+        return PER_FETCH;
+    }
+
+    /**
+     * 默认线程是否为虚拟线程
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * 创建固定数量的工作线程，用完后需要关闭
+     */
+    static ExecutorService newWorkerPool(String name, int threads) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+}
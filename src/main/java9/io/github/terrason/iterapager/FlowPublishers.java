@@ -0,0 +1,214 @@
+package io.github.terrason.iterapager;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 分页数据的{@link Flow.Publisher}适配.
+ * <p>
+ * 每个订阅者各自从第一页开始迭代，只在已获取的数据不足以满足{@link Flow.Subscription#request(long)}时才调用生产者获取下一页；
+ * 请求数量恰好在页尾用完时提前获取下一页，以便没有更多数据时立即发出完成信号。
+ * 取消订阅后不再调用生产者，并关闭由后台任务驱动的{@link CloseableIterator}（如{@link PartitionedPager}、{@link UnionPager}）。
+ * 信号在线程池中串行发出。
+ *
+ * @author lipei
+ */
+public final class FlowPublishers {
+
+    private FlowPublishers() {
+    }
+
+    /**
+     * 逐个元素发布，使用{@link PagerExecutors#perFetch() 默认线程}获取数据和发出信号.
+     */
+    public static <T> Flow.Publisher<T> elements(PagedIterable<T> pager) {
+        return elements(pager, PagerExecutors.perFetch());
+    }
+
+    /**
+     * 逐个元素发布. 只有当前页元素发完且仍有请求，或请求恰好在页尾用完时才获取下一页。
+     *
+     * @param pager    分页数据
+     * @param executor 获取数据和发出信号的线程池
+     */
+    public static <T> Flow.Publisher<T> elements(PagedIterable<T> pager, Executor executor) {
+        return new IteratorPublisher<>(pager::closeableConcat, executor);
+    }
+
+    /**
+     * 逐页发布，使用{@link PagerExecutors#perFetch() 默认线程}获取数据和发出信号.
+     */
+    public static <M> Flow.Publisher<M> pages(ModelPager<M> pager) {
+        return pages(pager, PagerExecutors.perFetch());
+    }
+
+    /**
+     * 逐页发布. 每请求一页获取一页，请求用完时再获取一页以判断是否结束。
+     *
+     * @param pager    分页数据
+     * @param executor 获取数据和发出信号的线程池
+     */
+    public static <M> Flow.Publisher<M> pages(ModelPager<M> pager, Executor executor) {
+        return new IteratorPublisher<>(pager::iterator, executor);
+    }
+
+    private static final class IteratorPublisher<E> implements Flow.Publisher<E> {
+        private final Supplier<Iterator<E>> source;
+        private final Executor executor;
+
+        IteratorPublisher(Supplier<Iterator<E>> source, Executor executor) {
+            this.source = source;
+            this.executor = executor;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super E> subscriber) {
+            Objects.requireNonNull(subscriber, "subscriber");
+            IteratorSubscription<E> subscription = new IteratorSubscription<>(subscriber, source, executor);
+            subscriber.onSubscribe(subscription);
+        }
+    }
+
+    /**
+     * 按请求数量驱动迭代器的订阅. 所有信号都在{@link #run()}中串行发出，取消和结束后的清理也在其中进行。
+     */
+    private static final class IteratorSubscription<E> implements Flow.Subscription, Runnable {
+        /**
+         * 取消或结束后置为{@code null}（规范 §3.13）
+         */
+        private volatile Flow.Subscriber<? super E> subscriber;
+        private final Supplier<Iterator<E>> source;
+        private final Executor executor;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        /**
+         * 非法的请求数量，没有时为{@code null}
+         */
+        private volatile Long invalidRequest;
+        /**
+         * 只在{@link #run()}中访问，线程池拒绝执行时在{@link #schedule()}中关闭
+         */
+        private Iterator<E> iterator;
+
+        IteratorSubscription(Flow.Subscriber<? super E> subscriber, Supplier<Iterator<E>> source, Executor executor) {
+            this.subscriber = subscriber;
+            this.source = source;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = n;
+            } else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    Flow.Subscriber<? super E> s = cancelled ? null : subscriber;
+                    release();
+                    if (s != null) {
+                        s.onError(e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 结束订阅：关闭迭代器，不再引用订阅者
+         */
+        private void release() {
+            cancelled = true;
+            subscriber = null;
+            Iterator<E> it = iterator;
+            iterator = null;
+            if (it instanceof CloseableIterator) {
+                ((CloseableIterator<E>) it).close();
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                Flow.Subscriber<? super E> s = subscriber;
+                if (cancelled || s == null) {
+                    release();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    release();
+                    s.onError(new IllegalArgumentException("§3.9 请求数量必须为正数：" + invalidRequest));
+                    return;
+                }
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand) {
+                    E next;
+                    try {
+                        if (iterator == null) {
+                            iterator = source.get();
+                        }
+                        if (!iterator.hasNext()) {
+                            release();
+                            s.onComplete();
+                            return;
+                        }
+                        next = iterator.next();
+                    } catch (Throwable e) {
+                        release();
+                        s.onError(e);
+                        return;
+                    }
+                    try {
+                        s.onNext(next);
+                    } catch (Throwable e) {//§2.13 订阅者违反规范，视为取消
+                        release();
+                        return;
+                    }
+                    emitted++;
+                    if (cancelled) {
+                        release();
+                        return;
+                    }
+                }
+                //请求数量恰好用完时也要发出完成信号，不等下一次请求（规范 §1.2）
+                if (emitted != 0) {
+                    try {
+                        if (!iterator.hasNext()) {
+                            release();
+                            s.onComplete();
+                            return;
+                        }
+                    } catch (Throwable e) {
+                        release();
+                        s.onError(e);
+                        return;
+                    }
+                    long consumed = emitted;
+                    //Long.MAX_VALUE 表示不限数量（规范 §3.17），不再扣减
+                    requested.getAndUpdate(r -> r == Long.MAX_VALUE ? r : r - consumed);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPagerTest {
+
+    private List<Integer> data;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 100)
+                .boxed()
+                .collect(Collectors.toList());
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 模拟异步驱动：延迟后在调度线程中返回结果
+     */
+    private <V> CompletableFuture<V> later(V value) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.complete(value), 1, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private List<Integer> page(int offset, int limit) {
+        int start = Math.min(offset, data.size());
+        return data.subList(start, Math.min(start + limit, data.size()));
+    }
+
+    /**
+     * 测试异步逐页处理。
+     * <p>
+     * 验证目标：
+     * 1. 确保按页顺序处理全部数据，结果为数据总条数。
+     * 2. 确保有序分页以上一页的最后一个元素作为游标。
+     * 3. 确保生产者同步返回时不会因递归导致栈溢出。
+     */
+    @Test
+    void testForEachAsync() throws Exception {
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        AsyncPager<Collection<Integer>> pager = AsyncPager.of(30, pageable -> later(page(pageable.offset(), 30)));
+        assertEquals(100L, pager.forEachAsync(result::addAll).get(5, TimeUnit.SECONDS));
+        assertEquals(data, result);
+
+        List<Integer> cursors = Collections.synchronizedList(new ArrayList<>());
+        AsyncPager<Collection<Integer>> ordered = AsyncPager.<Integer>ofOrdered(25, (pageable, last) -> {
+            cursors.add(last);
+            return later(page(last == null ? 0 : last, pageable.getLimit()));
+        });
+        result.clear();
+        assertEquals(100L, ordered.forEachAsync(result::addAll).get(5, TimeUnit.SECONDS));
+        assertEquals(data, result);
+        assertEquals(Arrays.asList(null, 25, 50, 75, 100), cursors);
+
+        List<Integer> many = IntStream.range(0, 200_000).boxed().collect(Collectors.toList());
+        AtomicInteger pages = new AtomicInteger();
+        AsyncPager<Collection<Integer>> sync = AsyncPager.<Integer>of(2, pageable -> {
+            int start = Math.min(pageable.offset(), many.size());
+            return CompletableFuture.completedFuture(many.subList(start, Math.min(start + 2, many.size())));
+        }).timesLimit(Integer.MAX_VALUE);
+        assertEquals(200_000L, sync.forEachAsync(p -> pages.incrementAndGet()).get(30, TimeUnit.SECONDS));
+        assertEquals(100_000, pages.get());
+    }
+
+    /**
+     * 测试异步处理每页数据。
+     * <p>
+     * 验证目标：
+     * 1. 确保处理第N页时已开始获取第N+1页，且第N页处理完成后才处理第N+1页。
+     * 2. 确保处理失败时以该异常结束，不再获取后续页。
+     */
+    @Test
+    void testMapPagesAsync() throws Exception {
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicInteger handling = new AtomicInteger();
+        List<Integer> overlaps = Collections.synchronizedList(new ArrayList<>());
+        AsyncPager<Collection<Integer>> pager = AsyncPager.of(10, pageable -> {
+            fetched.incrementAndGet();
+            return later(page(pageable.offset(), 10));
+        });
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        long total = pager.mapPagesAsync(page -> {
+            assertEquals(1, handling.incrementAndGet());
+            overlaps.add(fetched.get());
+            CompletableFuture<Void> handled = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                result.addAll(page);
+                handling.decrementAndGet();
+                handled.complete(null);
+            }, 2, TimeUnit.MILLISECONDS);
+            return handled;
+        }).get(5, TimeUnit.SECONDS);
+        assertEquals(100, total);
+        assertEquals(data, result);
+        //处理第1页时已发起第2页的获取
+        assertEquals(2, overlaps.get(0));
+
+        fetched.set(0);
+        CompletableFuture<Long> failed = pager.mapPagesAsync(page -> {
+            CompletableFuture<Void> handled = new CompletableFuture<>();
+            handled.completeExceptionally(new IllegalStateException("处理失败"));
+            return handled;
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(fetched.get() <= 2);
+    }
+
+    /**
+     * 测试异常和最大循环次数。
+     * <p>
+     * 验证目标：
+     * 1. 确保生产者同步抛出或异步失败的异常都通过结果返回。
+     * 2. 确保超过最大循环次数、返回数据过多时以对应异常结束。
+     */
+    @Test
+    void testFailures() {
+        AsyncPager<Collection<Integer>> throwing = AsyncPager.of(10, pageable -> {
+            throw new IllegalArgumentException("参数错误");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> throwing.forEachAsync(p -> {
+        }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+
+        AsyncPager<Collection<Integer>> looping = AsyncPager.<Integer>of(10, pageable -> later(page(0, 10))).timesLimit(3);
+        e = assertThrows(ExecutionException.class, () -> looping.forEachAsync(p -> {
+        }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        AsyncPager<Collection<Integer>> tooMany = AsyncPager.of(10, pageable -> later(page(0, 20)));
+        e = assertThrows(ExecutionException.class, () -> tooMany.forEachAsync(p -> {
+        }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(UnsupportedOperationException.class, e.getCause());
+    }
+}
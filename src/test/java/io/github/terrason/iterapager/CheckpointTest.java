@@ -0,0 +1,113 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private List<Integer> data;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 100)
+                .boxed()
+                .collect(Collectors.toList());
+        calls = new AtomicInteger();
+    }
+
+    private IteraPager<Integer> createOrderedPager(int batchSize) {
+        return IteraPager.ofOrdered(batchSize, (pageable, last) -> {
+            calls.incrementAndGet();
+            int start = last == null ? 0 : data.indexOf(last) + 1;
+            return start >= data.size() ? Collections.emptyList() : data.subList(start, Math.min(start + batchSize, data.size()));
+        });
+    }
+
+    /**
+     * 测试有序分页中断后从断点继续。
+     * <p>
+     * 验证目标：
+     * 1. 确保按间隔保存断点，断点记录已处理完成的页数和游标。
+     * 2. 确保从断点继续时不再获取已处理完成的页，且数据不重复、不遗漏。
+     * 3. 确保数据全部处理完成后保存结束标记。
+     */
+    @Test
+    void testResumeOrdered() {
+        CheckpointFile file = CheckpointFile.of(dir.resolve("ordered.checkpoint")).everyPages(2);
+        IteraPager<Integer> pager = createOrderedPager(10)
+                .checkpoint(file, CheckpointCodec.ofLastElement(String::valueOf, Integer::valueOf));
+
+        List<Integer> processed = new ArrayList<>();
+        Iterator<Integer> iterator = pager.concat();
+        for (int i = 0; i < 45; i++) {//处理到第5页中途时中断
+            processed.add(iterator.next());
+        }
+        Checkpoint checkpoint = file.load();
+        assertNotNull(checkpoint);
+        assertEquals(4, checkpoint.getPages());
+        assertEquals(40, checkpoint.getRows());
+        assertEquals("40", checkpoint.getLastKey());
+        assertFalse(checkpoint.isFinished());
+
+        calls.set(0);
+        List<Integer> resumed = new ArrayList<>();
+        pager.resumeFrom(checkpoint).concat().forEachRemaining(resumed::add);
+        assertEquals(data.subList(40, 100), resumed);
+        assertEquals(7, calls.get());
+
+        Checkpoint finished = file.load();
+        assertNotNull(finished);
+        assertTrue(finished.isFinished());
+        assertFalse(pager.resumeFrom(finished).iterator().hasNext());
+    }
+
+    /**
+     * 测试按偏移量分页从断点继续。
+     * <p>
+     * 验证目标：
+     * 1. 确保不需要游标编解码即可从断点页码继续。
+     * 2. 确保从断点继续的流也从断点页码开始。
+     */
+    @Test
+    void testResumeOffset() {
+        CheckpointFile file = CheckpointFile.of(dir.resolve("offset.checkpoint"));
+        IteraPager<Integer> pager = new IteraPager<Integer>(10, pageable -> {
+            calls.incrementAndGet();
+            int start = pageable.offset();
+            return start >= data.size() ? Collections.emptyList() : data.subList(start, Math.min(start + 10, data.size()));
+        }).checkpoint(file);
+
+        Iterator<Integer> iterator = pager.concat();
+        for (int i = 0; i < 31; i++) {
+            iterator.next();
+        }
+        Checkpoint checkpoint = file.load();
+        assertNotNull(checkpoint);
+        assertEquals(3, checkpoint.getPages());
+        assertNull(checkpoint.getLastKey());
+
+        List<Integer> resumed = new ArrayList<>();
+        pager.resumeFrom(checkpoint).concat().forEachRemaining(resumed::add);
+        assertEquals(data.subList(30, 100), resumed);
+        assertEquals(data.subList(30, 100), pager.resumeFrom(checkpoint).stream().collect(Collectors.toList()));
+
+        assertThrowsExactly(IllegalStateException.class,
+                () -> createOrderedPager(10).resumeFrom(new Checkpoint(3, 30, "30", false)));
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContinuationTest {
+
+    private List<Integer> data;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 95)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    private IteraPager<Integer> pager() {
+        return new IteraPager<>(10, pageable -> {
+            calls.incrementAndGet();
+            int start = Math.min(pageable.offset(), data.size());
+            return data.subList(start, Math.min(start + 10, data.size()));
+        });
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 测试分时迭代。
+     * <p>
+     * 验证目标：
+     * 1. 确保剩余时间不够处理一页时在页边界停止，每次至少处理一页。
+     * 2. 确保从续接点继续时不重复获取，最终得到全部数据。
+     */
+    @Test
+    void testIterateFor() {
+        IteraPager<Integer> pager = pager();
+        List<Integer> result = new ArrayList<>();
+        List<Integer> slices = new ArrayList<>();
+        Continuation<Collection<Integer>> continuation = pager.iterateFor(Duration.ofMillis(35), page -> {
+            result.addAll(page);
+            sleep(10);
+        });
+        slices.add(continuation.getPages());
+        while (!continuation.isFinished()) {
+            continuation = pager.iterateFor(continuation, Duration.ofMillis(35), page -> {
+                result.addAll(page);
+                sleep(10);
+            });
+            slices.add(continuation.getPages());
+        }
+        assertEquals(data, result);
+        assertEquals(95, continuation.getRows());
+        assertEquals(10, calls.get());
+        assertTrue(slices.size() >= 3);
+        assertTrue(slices.get(0) <= 4);
+        assertNull(continuation.getLastData());
+
+        //时间不够也至少处理一页
+        Continuation<Collection<Integer>> once = pager.iterateFor(Duration.ZERO, page -> {
+        });
+        assertEquals(1, once.getPages());
+        assertFalse(once.isFinished());
+        assertSame(continuation, pager.iterateFor(continuation, Duration.ofSeconds(1), page -> fail("已完成")));
+    }
+
+    /**
+     * 测试有序分页的续接点。
+     * <p>
+     * 验证目标：
+     * 1. 确保续接点只保存最后一个元素作为游标。
+     * 2. 确保继续时以该元素查询下一页。
+     */
+    @Test
+    void testOrdered() {
+        List<Integer> lasts = new ArrayList<>();
+        IteraPager<Integer> pager = IteraPager.ofOrdered(10, (pageable, last) -> {
+            lasts.add(last);
+            int start = last == null ? 0 : last;
+            return data.subList(Math.min(start, data.size()), Math.min(start + 10, data.size()));
+        });
+        List<Integer> result = new ArrayList<>();
+        Continuation<Collection<Integer>> continuation = pager.iterateFor(Duration.ZERO, result::addAll);
+        assertEquals(Collections.singletonList(10), continuation.getLastData());
+        continuation = pager.iterateFor(continuation, Duration.ZERO, result::addAll);
+        assertEquals(Collections.singletonList(20), continuation.getLastData());
+        continuation = pager.iterateFor(continuation, Duration.ofSeconds(10), result::addAll);
+        assertTrue(continuation.isFinished());
+        assertEquals(data, result);
+        assertEquals(Arrays.asList(null, 10, 20, 30, 40, 50, 60, 70, 80, 90), lasts);
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> new IteraPager<Integer>(PageQuery.of(1, 10), Collections::emptyList).iterateFor(Duration.ZERO, page -> {
+                }));
+    }
+}
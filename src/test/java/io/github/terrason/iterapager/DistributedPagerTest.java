@@ -0,0 +1,188 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistributedPagerTest {
+
+    @TempDir
+    Path dir;
+
+    private List<Integer> data;
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 205)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    private IteraPager<Integer> pager() {
+        return new IteraPager<>(10, pageable -> {
+            int start = Math.min(pageable.offset(), data.size());
+            return data.subList(start, Math.min(start + pageable.getLimit(), data.size()));
+        });
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 测试多个工作者分工扫描。
+     * <p>
+     * 验证目标：
+     * 1. 确保每个工作者使用各自的租约存储实例，所有数据恰好被处理一次。
+     * 2. 确保工作都被分配给多个工作者。
+     */
+    @Test
+    void testWorkers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        Set<String> owners = ConcurrentHashMap.newKeySet();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                String owner = "worker-" + i;
+                workers.add(executor.submit(() -> {
+                    DistributedPager<Integer> pager = DistributedPager.ofPages(pager(), 2, FileLeaseStore.of(dir)).owner(owner);
+                    for (Collection<Integer> page : pager) {
+                        owners.add(owner);
+                        result.addAll(page);
+                        sleep(5);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Collections.sort(result);
+        assertEquals(data, result);
+        assertTrue(owners.size() > 1);
+
+        //已全部完成，再次扫描没有可领取的单元
+        assertFalse(DistributedPager.ofPages(pager(), 2, FileLeaseStore.of(dir)).iterator().hasNext());
+        FileLeaseStore.of(dir).delete();
+        List<Integer> again = new ArrayList<>();
+        DistributedPager.ofPages(pager(), 5, FileLeaseStore.of(dir)).flat().forEach(again::add);
+        assertEquals(data, again);
+    }
+
+    /**
+     * 测试工作者崩溃。
+     * <p>
+     * 验证目标：
+     * 1. 确保未到期的租约不会被其他工作者领取。
+     * 2. 确保租约到期后其他工作者从头重新处理该单元。
+     * 3. 确保提前关闭时放弃租约，其他工作者可以立即领取。
+     */
+    @Test
+    void testExpiredLease() {
+        DistributedPager<Integer> crashed = DistributedPager.ofPages(pager(), 5, FileLeaseStore.of(dir))
+                .leaseTime(Duration.ofMillis(300));
+        Iterator<Collection<Integer>> iterator = crashed.iterator();
+        assertEquals(data.subList(0, 10), new ArrayList<>(iterator.next()));
+        //不关闭迭代器，模拟崩溃
+
+        List<Integer> result = new ArrayList<>();
+        DistributedPager.ofPages(pager(), 5, FileLeaseStore.of(dir)).concat().forEachRemaining(result::add);
+        assertEquals(data.subList(50, 205), result);
+
+        sleep(400);
+        result.clear();
+        try (CloseableIterator<Collection<Integer>> closed = DistributedPager.ofPages(pager(), 5, FileLeaseStore.of(dir)).iterator()) {
+            result.addAll(closed.next());
+        }
+        assertEquals(data.subList(0, 10), result);
+        DistributedPager.ofPages(pager(), 5, FileLeaseStore.of(dir)).concat().forEachRemaining(result::add);
+        assertEquals(data.subList(0, 50), result.subList(10, 60));
+        assertEquals(60, result.size());
+    }
+
+    /**
+     * 测试租约到期后完成工作单元。
+     * <p>
+     * 验证目标：
+     * 1. 确保租约已被其他持有者领取时，原持有者的完成标记被忽略。
+     * 2. 确保被忽略的完成标记不会结束后续单元的分配。
+     */
+    @Test
+    void testCompleteAfterExpired() {
+        FileLeaseStore store = FileLeaseStore.of(dir);
+        Lease stale = store.claim(Integer.MAX_VALUE, "a", Duration.ofMillis(50));
+        assertNotNull(stale);
+        sleep(100);
+        Lease current = store.claim(Integer.MAX_VALUE, "b", Duration.ofMinutes(1));
+        assertNotNull(current);
+        assertEquals(stale.getUnit(), current.getUnit());
+
+        store.complete(stale, true);
+        assertNotNull(store.renew(current, Duration.ofMinutes(1)));
+        Lease next = store.claim(Integer.MAX_VALUE, "c", Duration.ofMinutes(1));
+        assertNotNull(next);
+        assertEquals(current.getUnit() + 1, next.getUnit());
+
+        store.complete(current, false);
+        assertNull(store.renew(current, Duration.ofMinutes(1)));
+    }
+
+    /**
+     * 测试有序分页按键区间分工。
+     * <p>
+     * 验证目标：
+     * 1. 确保每个键区间为一个工作单元，所有数据恰好被处理一次。
+     * 2. 确保有序分页不能按页分工。
+     */
+    @Test
+    void testPartitions() {
+        List<Long> ids = LongStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+        PartitionedPager<Long, Long> partitioned = PartitionedPager.of(33, 1L, 1001L, 7, PartitionedPager.KeySplitter.ofLong(),
+                (range, pageable, last) -> ids.stream()
+                        .filter(range::contains)
+                        .filter(id -> last == null || id > last)
+                        .limit(pageable.getLimit())
+                        .collect(Collectors.toList()));
+        List<Long> first = new ArrayList<>();
+        Iterator<Collection<Long>> worker = DistributedPager.ofPartitions(partitioned, FileLeaseStore.of(dir)).iterator();
+        first.addAll(worker.next());
+        List<Long> second = new ArrayList<>();
+        DistributedPager.ofPartitions(partitioned, FileLeaseStore.of(dir)).concat().forEachRemaining(second::add);
+        worker.forEachRemaining(first::addAll);
+
+        assertEquals(ids.subList(0, 33), first.subList(0, 33));
+        List<Long> result = new ArrayList<>(first);
+        result.addAll(second);
+        Collections.sort(result);
+        assertEquals(ids, result);
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> DistributedPager.ofPages(IteraPager.<Integer>ofOrdered(10, (p, last) -> data), 1, FileLeaseStore.of(dir)));
+    }
+}
@@ -4,10 +4,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.IntConsumer;
@@ -211,6 +223,406 @@ class IteraPagerTest {
         });
     }
 
+    /**
+     * 测试 prefetch() 方法。
+     * <p>
+     * 验证目标：
+     * 1. 确保预取模式下按顺序正确检索所有元素，且不超过预期的查询次数。
+     * 2. 确保有序分页预取时仍能拿到上一批数据的最后一个元素。
+     * 3. 确保生产者抛出的异常原样传递给消费者。
+     * 4. 确保提前关闭迭代器时取消预取，正在执行的获取被中断。
+     */
+    @Test
+    void testPrefetch() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            int batchSize = 7;
+            AtomicInteger calls = new AtomicInteger(0);
+            Function<Pageable, List<Integer>> producer = createProducer(batchSize, null);
+            IteraPager<Integer> pager = new IteraPager<Integer>(batchSize, p -> {
+                calls.incrementAndGet();
+                return producer.apply(p);
+            }).prefetch(3, executor);
+
+            List<Integer> result = new ArrayList<>();
+            pager.concat().forEachRemaining(result::add);
+            assertEquals(data, result);
+            assertTrue(calls.get() <= data.size() / batchSize + 1 + 3);
+
+            IteraPager<Integer> ordered = IteraPager.ofOrdered(batchSize, createOrderedProducer(batchSize))
+                    .prefetch(3, executor);
+            List<Integer> orderedResult = new ArrayList<>();
+            ordered.concat().forEachRemaining(orderedResult::add);
+            assertEquals(data, orderedResult);
+
+            IteraPager<Integer> failing = new IteraPager<Integer>(batchSize, p -> {
+                if (p.page() == 3) {
+                    throw new IllegalArgumentException("boom");
+                }
+                return producer.apply(p);
+            }).prefetch(2, executor);
+            Iterator<Integer> iterator = failing.concat();
+            for (int i = 0; i < batchSize * 2; i++) {
+                assertEquals(data.get(i), iterator.next());
+            }
+            assertThrowsExactly(IllegalArgumentException.class, iterator::next);
+
+            ExecutorService blocking = Executors.newFixedThreadPool(3);
+            AtomicInteger interrupted = new AtomicInteger();
+            CountDownLatch running = new CountDownLatch(1);
+            IteraPager<Integer> slow = new IteraPager<Integer>(batchSize, p -> {
+                if (p.page() > 1) {
+                    running.countDown();
+                    try {
+                        TimeUnit.MINUTES.sleep(1);
+                    } catch (InterruptedException e) {
+                        interrupted.incrementAndGet();
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return producer.apply(p);
+            }).prefetch(3, blocking);
+            try (CloseableIterator<Integer> closeable = slow.closeableConcat()) {
+                assertEquals(data.get(0), closeable.next());
+                //至少有一个获取正在执行，关闭时应被中断
+                assertTrue(running.await(5, TimeUnit.SECONDS));
+            }
+            blocking.shutdown();
+            assertTrue(blocking.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(interrupted.get() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试 fanOut() 方法。
+     * <p>
+     * 验证目标：
+     * 1. 确保得知总数后并发获取剩余页，且仍按顺序返回所有元素。
+     * 2. 确保不会发起超出总数的查询。
+     * 3. 确保有序分页不支持并发获取。
+     */
+    @Test
+    void testFanOut() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            int batchSize = 10;
+            AtomicInteger calls = new AtomicInteger(0);
+            Function<Pageable, List<Integer>> producer = createProducer(batchSize, null);
+            IteraPager<Integer> pager = IteraPager.of(
+                    batchSize,
+                    pageable -> {
+                        calls.incrementAndGet();
+                        List<Integer> elements = producer.apply(pageable);
+                        return new PageResult(elements, elements.size());
+                    },
+                    PageResult::getElements,
+                    PageResult::getSize,
+                    r -> data.size()).fanOut(4, executor);
+
+            List<Integer> result = new ArrayList<>();
+            pager.concat().forEachRemaining(result::add);
+            assertEquals(data, result);
+            assertEquals(data.size() / batchSize, calls.get());
+
+            IteraPager<Integer> ordered = IteraPager.ofOrdered(batchSize, createOrderedProducer(batchSize));
+            assertThrowsExactly(UnsupportedOperationException.class, () -> ordered.fanOut(4, executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试 stream() 和 parallelStream() 方法。
+     * <p>
+     * 验证目标：
+     * 1. 确保顺序流和并行流都能按顺序正确检索所有元素。
+     * 2. 确保生产者返回总数时按页码区间拆分，拆分出的区间报告准确大小。
+     * 3. 确保有序分页的并行流按批拆分后仍能正确检索所有元素。
+     * 4. 确保创建流时不调用生产者。
+     */
+    @Test
+    void testStream() {
+        int batchSize = 7;
+        AtomicInteger calls = new AtomicInteger();
+        Function<Pageable, List<Integer>> producer = createProducer(batchSize, null);
+        IteraPager<Integer> pager = new IteraPager<>(batchSize, p -> {
+            calls.incrementAndGet();
+            return producer.apply(p);
+        });
+        pager.stream();
+        pager.parallelStream().filter(e -> e > 0);
+        assertEquals(0, calls.get());
+        assertEquals(data, pager.stream().collect(Collectors.toList()));
+        assertEquals(data, pager.parallelStream().collect(Collectors.toList()));
+
+        IteraPager<Integer> sized = IteraPager.of(
+                batchSize,
+                pageable -> {
+                    List<Integer> elements = producer.apply(pageable);
+                    return new PageResult(elements, elements.size());
+                },
+                PageResult::getElements,
+                PageResult::getSize,
+                r -> data.size());
+        Spliterator<Integer> spliterator = sized.flatSpliterator();
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertTrue(prefix.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(data.size(), prefix.getExactSizeIfKnown() + spliterator.estimateSize());
+        assertEquals(data, sized.parallelStream().collect(Collectors.toList()));
+        assertEquals(data.stream().mapToInt(Integer::intValue).sum(),
+                sized.parallelStream().mapToInt(Integer::intValue).sum());
+
+        IteraPager<Integer> ordered = IteraPager.ofOrdered(batchSize, createOrderedProducer(batchSize));
+        assertEquals(data, ordered.parallelStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * 测试 forEachBatch() 和 pipeline() 方法。
+     * <p>
+     * 验证目标：
+     * 1. 确保多线程处理后每页数据都被处理且只处理一次。
+     * 2. 确保水位按顺序前进，最终等于总页数。
+     * 3. 确保处理逻辑抛出的异常原样传递给调用者。
+     */
+    @Test
+    void testForEachBatch() {
+        int batchSize = 3;
+        Function<Pageable, List<Integer>> producer = createProducer(batchSize, null);
+        IteraPager<Integer> pager = new IteraPager<>(batchSize, producer);
+
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        int pages = pager.forEachBatch(result::addAll, 4, 2);
+        assertEquals((data.size() + batchSize - 1) / batchSize, pages);
+        Collections.sort(result);
+        assertEquals(data, result);
+
+        List<Integer> watermarks = new ArrayList<>();
+        BatchPipeline<Collection<Integer>> pipeline = pager.pipeline(3, 1).onWatermark(watermarks::add);
+        pipeline.run(page -> {
+        });
+        assertEquals(pages, pipeline.getWatermark());
+        for (int i = 1; i < watermarks.size(); i++) {
+            assertTrue(watermarks.get(i) > watermarks.get(i - 1));
+        }
+
+        //监听器阻塞时其他工作线程继续处理，之后补发最新水位
+        CountDownLatch consumed = new CountDownLatch(pages);
+        List<Integer> blockedMarks = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger unblocked = new AtomicInteger();
+        pager.pipeline(3, 1).onWatermark(mark -> {
+            try {
+                if (blockedMarks.isEmpty() && consumed.await(5, TimeUnit.SECONDS)) {
+                    unblocked.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            blockedMarks.add(mark);
+        }).run(page -> consumed.countDown());
+        assertEquals(1, unblocked.get());
+        assertEquals(pages, blockedMarks.get(blockedMarks.size() - 1));
+        for (int i = 1; i < blockedMarks.size(); i++) {
+            assertTrue(blockedMarks.get(i) > blockedMarks.get(i - 1));
+        }
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> pager.forEachBatch(page -> {
+            if (page.contains(50)) {
+                throw new IllegalArgumentException("boom");
+            }
+        }, 2, 2));
+
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            BatchPipeline<Collection<Integer>> rejecting = pager.pipeline(3, 1).executor(task -> {
+                if (accepted.getAndIncrement() > 0) {
+                    throw new RejectedExecutionException("full");
+                }
+                single.execute(task);
+            });
+            assertThrowsExactly(RejectedExecutionException.class, () -> rejecting.run(page -> {
+            }));
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    /**
+     * 测试 adaptiveBatchSize() 方法。
+     * <p>
+     * 验证目标：
+     * 1. 确保耗时超过目标时每页大小减小，低于目标时增大，且不超出范围。
+     * 2. 确保每页大小变化时按累计偏移量仍能正确检索所有元素。
+     */
+    @Test
+    void testAdaptiveBatchSize() {
+        AdaptiveBatchSize latency = AdaptiveBatchSize.targetLatency(Duration.ofMillis(10), 5, 40);
+        AdaptiveBatchSize.Tuner tuner = latency.newTuner(20);
+        assertEquals(10, tuner.next(20, TimeUnit.MILLISECONDS.toNanos(20)));
+        int limit = tuner.next(10, TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limit > 10);
+        for (int i = 0; i < 10; i++) {
+            limit = tuner.next(limit, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(40, limit);
+
+        List<Integer> limits = new ArrayList<>();
+        IteraPager<Integer> pager = new IteraPager<Integer>(8, pageable -> {
+            limits.add(pageable.getLimit());
+            int start = pageable.offset();
+            if (start >= data.size()) {
+                return Collections.emptyList();
+            }
+            return data.subList(start, Math.min(start + pageable.getLimit(), data.size()));
+        }).adaptiveBatchSize(AdaptiveBatchSize.maxThroughput(3, 12));
+
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertTrue(limits.stream().distinct().count() > 1);
+        assertTrue(limits.stream().allMatch(l -> l >= 3 && l <= 12));
+    }
+
+    /**
+     * 测试监听器和指标采集。
+     * <p>
+     * 验证目标：
+     * 1. 确保记录每次获取的次数、数据量和耗时。
+     * 2. 确保记录到达末尾的依据。
+     * 3. 确保生产者异常和超过最大循环次数时记录失败次数。
+     */
+    @Test
+    void testListener() {
+        PagerMetrics metrics = new PagerMetrics();
+        IteraPager<Integer> pager = new IteraPager<>(30, createProducer(30, null)).listener(metrics);
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertEquals(4, metrics.getFetchCount());
+        assertEquals(100, metrics.getRows());
+        assertEquals(PagerListener.EndReason.SHORT_PAGE, metrics.getEndReason());
+        assertTrue(metrics.getFetchNanosAtQuantile(0.5) <= metrics.getMaxFetchNanos());
+        assertTrue(metrics.getMaxFetchNanos() > 0);
+        assertEquals(0, metrics.getErrorCount());
+
+        PagerMetrics empty = new PagerMetrics();
+        new IteraPager<>(10, createProducer(10, null)).listener(empty).concat().forEachRemaining(e -> {
+        });
+        assertEquals(11, empty.getFetchCount());
+        assertEquals(PagerListener.EndReason.EMPTY_PAGE, empty.getEndReason());
+
+        PagerMetrics failed = new PagerMetrics();
+        IteraPager<Integer> failing = new IteraPager<Integer>(10, pageable -> {
+            throw new IllegalStateException("boom");
+        }).listener(failed);
+        assertThrows(IllegalStateException.class, () -> failing.concat().hasNext());
+        assertEquals(1, failed.getErrorCount());
+
+        PagerMetrics limited = new PagerMetrics();
+        IteraPager<Integer> looping = new IteraPager<>(10, createProducer(10, null)).timesLimit(3).listener(limited);
+        assertThrows(IllegalStateException.class, () -> looping.concat().forEachRemaining(e -> {
+        }));
+        assertEquals(1, limited.getErrorCount());
+        assertEquals(4, limited.getFetchCount());
+    }
+
+    /**
+     * 测试不同集合类型的页展开。
+     * <p>
+     * 验证目标：
+     * 1. 确保随机访问列表、链表和有序集合的页都能正确展开并支持删除。
+     * 2. 确保有序分页对 Deque、SortedSet 等集合正确取得上一页最后一个元素。
+     */
+    @Test
+    void testConcatCollectionTypes() {
+        List<List<Integer>> copies = new ArrayList<>();
+        IteraPager<Integer> pager = new IteraPager<>(30, pageable -> {
+            int start = pageable.offset();
+            List<Integer> page = new ArrayList<>(data.subList(Math.min(start, data.size()), Math.min(start + 30, data.size())));
+            copies.add(page);
+            return page;
+        });
+        Iterator<Integer> iterator = pager.concat();
+        List<Integer> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Integer e = iterator.next();
+            result.add(e);
+            if (e % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(data, result);
+        assertTrue(copies.stream().flatMap(Collection::stream).allMatch(e -> e % 2 == 1));
+        assertThrows(IllegalStateException.class, iterator::remove);
+
+        DataProducer<Integer, Collection<Integer>> linked = (pageable, last) -> {
+            int start = last == null ? 0 : last;
+            return new ArrayDeque<>(data.subList(Math.min(start, data.size()), Math.min(start + 30, data.size())));
+        };
+        List<String> mapped = new ArrayList<>();
+        IteraPager.ofOrdered(30, linked).flat(String::valueOf).forEach(mapped::add);
+        assertEquals(data.stream().map(String::valueOf).collect(Collectors.toList()), mapped);
+
+        DataProducer<Integer, Collection<Integer>> sorted = (pageable, last) -> {
+            int start = last == null ? 0 : last;
+            return new TreeSet<>(data.subList(Math.min(start, data.size()), Math.min(start + 30, data.size())));
+        };
+        List<Integer> fromSets = new ArrayList<>();
+        IteraPager.ofOrdered(30, sorted).concat().forEachRemaining(fromSets::add);
+        assertEquals(data, fromSets);
+
+        Collection<Integer> hashed = new LinkedHashSet<>(data.subList(0, 5));
+        assertEquals(5, DelegatedPageProducer.lastElement(hashed));
+    }
+
+    /**
+     * 测试多取一条判断末尾。
+     * <p>
+     * 验证目标：
+     * 1. 确保数据总数是每页大小的整数倍时不再发起返回空页的查询。
+     * 2. 确保有序分页以返回的最后一个元素作为下一页的游标。
+     * 3. 确保与预取模式一起使用时结果正确。
+     */
+    @Test
+    void testLookahead() {
+        List<Integer> limits = new ArrayList<>();
+        IteraPager<Integer> pager = new IteraPager<Integer>(20, pageable -> {
+            limits.add(pageable.getLimit());
+            int start = Math.min(pageable.offset(), data.size());
+            return data.subList(start, Math.min(start + pageable.getLimit(), data.size()));
+        }).lookahead();
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertEquals(Collections.nCopies(5, 21), limits);
+
+        PagerMetrics metrics = new PagerMetrics();
+        result.clear();
+        pager.prefetch(3).listener(metrics).concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertEquals(PagerListener.EndReason.NO_LOOKAHEAD_ROW, metrics.getEndReason());
+
+        List<Integer> cursors = new ArrayList<>();
+        IteraPager<Integer> ordered = IteraPager.<Integer>ofOrdered(25, (pageable, last) -> {
+            cursors.add(last);
+            int start = last == null ? 0 : data.indexOf(last) + 1;
+            return new LinkedHashSet<>(data.subList(start, Math.min(start + pageable.getLimit(), data.size())));
+        }).lookahead();
+        result.clear();
+        ordered.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertEquals(Arrays.asList(null, 25, 50, 75), cursors);
+
+        IteraPager<Integer> tooMany = new IteraPager<Integer>(10, pageable -> data.subList(0, 12)).lookahead();
+        assertThrows(UnsupportedOperationException.class, () -> tooMany.concat().hasNext());
+    }
+
     static class PageResult {
         private final Collection<Integer> elements;
         private final int size;
@@ -0,0 +1,149 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergedPagerTest {
+
+    private List<List<Integer>> shardData;
+
+    @BeforeEach
+    void setUp() {
+        //按余数分为3个分片，第1个分片额外包含重复值
+        shardData = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            int remainder = r;
+            shardData.add(IntStream.rangeClosed(1, 100)
+                    .filter(i -> i % 3 == remainder)
+                    .boxed()
+                    .collect(Collectors.toList()));
+        }
+        shardData.get(0).addAll(Arrays.asList(10, 20, 30));
+        shardData.get(0).sort(Comparator.naturalOrder());
+    }
+
+    private IteraPager<Integer> shard(List<Integer> data, int batchSize, long delayMillis, AtomicInteger calls) {
+        return IteraPager.ofOrdered(batchSize, (pageable, last) -> {
+            calls.incrementAndGet();
+            if (delayMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int start = last == null ? 0 : data.lastIndexOf(last) + 1;
+            return data.subList(start, Math.min(start + batchSize, data.size()));
+        });
+    }
+
+    private List<Integer> expected() {
+        return shardData.stream().flatMap(Collection::stream).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * 测试多路归并。
+     * <p>
+     * 验证目标：
+     * 1. 确保合并结果整体有序，包含所有分片的全部数据。
+     * 2. 确保合并结果按 batchSize 重新分页。
+     */
+    @Test
+    void testMerge() {
+        AtomicInteger calls = new AtomicInteger();
+        List<IteraPager<Integer>> shards = shardData.stream()
+                .map(data -> shard(data, 7, 0, calls))
+                .collect(Collectors.toList());
+        MergedPager<Integer> merged = MergedPager.of(20, Comparator.naturalOrder(), shards);
+
+        List<Integer> result = new ArrayList<>();
+        merged.concat().forEachRemaining(result::add);
+        assertEquals(expected(), result);
+
+        List<Integer> sizes = new ArrayList<>();
+        List<Integer> paged = new ArrayList<>();
+        for (Collection<Integer> page : merged) {
+            sizes.add(page.size());
+            paged.addAll(page);
+        }
+        assertEquals(expected(), paged);
+        assertEquals(Arrays.asList(20, 20, 20, 20, 20, 3), sizes);
+
+        MergedPager<Integer> empty = MergedPager.of(20, Comparator.naturalOrder(), Collections.<IteraPager<Integer>>emptyList());
+        assertFalse(empty.iterator().hasNext());
+    }
+
+    /**
+     * 测试分片预取。
+     * <p>
+     * 验证目标：
+     * 1. 确保各分片在后台同时获取，总耗时接近最慢的分片而不是各分片之和。
+     * 2. 确保提前关闭后后台任务停止获取。
+     */
+    @Test
+    void testPrefetch() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        List<IteraPager<Integer>> shards = shardData.stream()
+                .map(data -> shard(data, 5, 10, calls))
+                .collect(Collectors.toList());
+        MergedPager<Integer> merged = MergedPager.of(20, Comparator.naturalOrder(), shards).prefetch(8);
+
+        long start = System.nanoTime();
+        List<Integer> result = new ArrayList<>();
+        merged.flat().forEach(result::add);
+        assertEquals(expected(), result);
+        //每个分片约8次获取，串行约240ms
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200));
+
+        calls.set(0);
+        try (CloseableIterator<Collection<Integer>> iterator = MergedPager.of(5, Comparator.<Integer>naturalOrder(), shards)
+                .prefetch(1)
+                .iterator()) {
+            assertEquals(5, iterator.next().size());
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+        int stopped = calls.get();
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(stopped, calls.get());
+        assertTrue(stopped < 24);
+    }
+
+    /**
+     * 测试分片未按顺序排列或获取失败。
+     * <p>
+     * 验证目标：
+     * 1. 确保分片数据未按顺序排列时抛出 IllegalStateException。
+     * 2. 确保预取模式下分片的异常原样抛给消费者。
+     */
+    @Test
+    void testFailure() {
+        List<IteraPager<Integer>> unordered = Arrays.asList(
+                new IteraPager<>(10, pageable -> pageable.page() == 1 ? Arrays.asList(3, 1) : Collections.<Integer>emptyList()),
+                new IteraPager<>(10, pageable -> pageable.page() == 1 ? Arrays.asList(2) : Collections.<Integer>emptyList()));
+        assertThrows(IllegalStateException.class,
+                () -> MergedPager.of(10, Comparator.<Integer>naturalOrder(), unordered).concat().forEachRemaining(e -> {
+                }));
+
+        List<IteraPager<Integer>> failing = Arrays.asList(
+                shard(shardData.get(0), 5, 0, new AtomicInteger()),
+                new IteraPager<>(10, pageable -> {
+                    throw new UnsupportedOperationException("分片不可用");
+                }));
+        assertThrows(UnsupportedOperationException.class,
+                () -> MergedPager.of(10, Comparator.<Integer>naturalOrder(), failing).prefetch(2).concat().forEachRemaining(e -> {
+                }));
+    }
+}
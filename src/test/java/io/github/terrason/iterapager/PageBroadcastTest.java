@@ -0,0 +1,156 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageBroadcastTest {
+
+    private List<Integer> data;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 95)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    private IteraPager<Integer> pager() {
+        return new IteraPager<>(10, pageable -> {
+            calls.incrementAndGet();
+            int start = Math.min(pageable.offset(), data.size());
+            return data.subList(start, Math.min(start + 10, data.size()));
+        });
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 测试广播。
+     * <p>
+     * 验证目标：
+     * 1. 确保每个消费者都按顺序收到全部数据，每页只获取一次。
+     * 2. 确保获取进度不超过最慢的消费者加上缓冲页数。
+     */
+    @Test
+    void testBroadcast() {
+        List<Integer> index = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> cache = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger slowConsumed = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        int pages = pager().broadcast(2)
+                .subscribe(index::addAll)
+                .subscribe(cache::addAll)
+                .subscribe(page -> {
+                    maxAhead.accumulateAndGet(calls.get() - slowConsumed.get(), Math::max);
+                    sleep(5);
+                    slowConsumed.incrementAndGet();
+                })
+                .run();
+        assertEquals(10, pages);
+        assertEquals(10, calls.get());
+        assertEquals(data, index);
+        assertEquals(data, cache);
+        assertEquals(10, slowConsumed.get());
+        //正在处理的1页 + 缓冲的2页 + 已获取等待放入的1页
+        assertTrue(maxAhead.get() <= 4, "超前页数：" + maxAhead.get());
+
+        assertThrows(IllegalStateException.class, () -> pager().broadcast(1).run());
+        assertThrows(IllegalArgumentException.class, () -> pager().broadcast(0));
+    }
+
+    /**
+     * 测试消费者或生产者失败。
+     * <p>
+     * 验证目标：
+     * 1. 确保抛出第一个异常，扫描停止，其他消费者停止处理。
+     * 2. 确保生产者的异常原样抛出。
+     */
+    @Test
+    void testFailure() {
+        AtomicInteger other = new AtomicInteger();
+        PageBroadcast<Collection<Integer>> broadcast = pager().broadcast(1)
+                .subscribe(page -> {
+                    if (page.contains(31)) {
+                        throw new UnsupportedOperationException("索引失败");
+                    }
+                })
+                .subscribe(page -> other.incrementAndGet());
+        assertThrows(UnsupportedOperationException.class, broadcast::run);
+        assertTrue(calls.get() < 10);
+        assertTrue(other.get() < 10);
+
+        IteraPager<Integer> failing = new IteraPager<>(10, pageable -> {
+            if (pageable.page() == 3) {
+                throw new IllegalStateException("查询失败");
+            }
+            return data.subList(0, 10);
+        });
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        assertThrows(IllegalStateException.class, () -> failing.broadcast(4).subscribe(received::addAll).run());
+        assertTrue(received.size() <= 20);
+    }
+
+    /**
+     * 测试线程池不能为每个消费者提供线程。
+     * <p>
+     * 验证目标：
+     * 1. 确保线程池拒绝任务时抛出该异常，已启动的消费者停止，线程全部结束。
+     * 2. 确保线程数少于消费者数时失败而不是一直等待，且不获取数据。
+     */
+    @Test
+    void testInsufficientExecutor() throws InterruptedException {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        AtomicInteger submitted = new AtomicInteger();
+        PageBroadcast<Collection<Integer>> rejecting = pager().broadcast(1)
+                .subscribe(page -> {
+                })
+                .subscribe(page -> {
+                })
+                .executor(task -> {
+                    if (submitted.getAndIncrement() > 0) {
+                        throw new RejectedExecutionException("full");
+                    }
+                    single.execute(task);
+                });
+        assertThrowsExactly(RejectedExecutionException.class, rejecting::run);
+        single.shutdown();
+        assertTrue(single.awaitTermination(5, TimeUnit.SECONDS));
+
+        ExecutorService starved = Executors.newSingleThreadExecutor();
+        try {
+            PageBroadcast<Collection<Integer>> broadcast = pager().broadcast(1)
+                    .subscribe(page -> {
+                    })
+                    .subscribe(page -> {
+                    })
+                    .executor(starved);
+            assertThrowsExactly(IllegalStateException.class, broadcast::run);
+            assertEquals(0, calls.get());
+            starved.shutdown();
+            assertTrue(starved.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            starved.shutdownNow();
+        }
+    }
+}
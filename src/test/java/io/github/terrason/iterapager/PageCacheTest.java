@@ -0,0 +1,87 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheTest {
+
+    private List<Integer> data;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 100)
+                .boxed()
+                .collect(Collectors.toList());
+        calls = new AtomicInteger();
+    }
+
+    private List<Integer> collect(IteraPager<Integer> pager) {
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        return result;
+    }
+
+    /**
+     * 测试按偏移量分页的缓存。
+     * <p>
+     * 验证目标：
+     * 1. 确保重复迭代和相同查询标识的分页命中缓存，不再调用生产者。
+     * 2. 确保统计命中和未命中次数。
+     */
+    @Test
+    void testOffsetCache() {
+        PageCache cache = PageCache.builder().maximumPages(100).build();
+        IteraPager<Integer> pager = new IteraPager<Integer>(10, pageable -> {
+            calls.incrementAndGet();
+            int start = pageable.offset();
+            return start >= data.size() ? Collections.emptyList() : data.subList(start, Math.min(start + 10, data.size()));
+        }).cached(cache, "numbers");
+
+        assertEquals(data, collect(pager));
+        int firstCalls = calls.get();
+        assertEquals(data, collect(pager));
+        assertEquals(firstCalls, calls.get());
+        assertEquals(firstCalls, cache.stats().missCount());
+        assertEquals(firstCalls, cache.stats().hitCount());
+
+        cache.invalidate("numbers");
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * 测试有序分页的缓存和淘汰。
+     * <p>
+     * 验证目标：
+     * 1. 确保以上一页最后一个元素的键命中缓存。
+     * 2. 确保超出最大数据条数时淘汰缓存页。
+     */
+    @Test
+    void testOrderedCacheEviction() {
+        PageCache cache = PageCache.builder()
+                .maximumRows(40)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+        IteraPager<Integer> pager = IteraPager.<Integer>ofOrdered(10, (pageable, last) -> {
+            calls.incrementAndGet();
+            int start = last == null ? 0 : data.indexOf(last) + 1;
+            return start >= data.size() ? Collections.emptyList() : data.subList(start, Math.min(start + 10, data.size()));
+        }).cached(cache, "ordered", Integer::longValue);
+
+        assertEquals(data, collect(pager));
+        assertEquals(data, collect(pager));
+        assertTrue(cache.stats().evictionCount() > 0);
+        assertTrue(cache.size() < 11);
+        assertTrue(calls.get() > 11);
+    }
+}
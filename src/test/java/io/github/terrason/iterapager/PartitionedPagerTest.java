@@ -0,0 +1,130 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedPagerTest {
+
+    private List<Long> data;
+    private ExecutorService executor;
+
+    private RangeDataProducer<Long, Long> createProducer() {
+        return (range, pageable, last) -> data.stream()
+                .filter(range::contains)
+                .filter(id -> last == null || id > last)
+                .limit(pageable.getLimit())
+                .collect(Collectors.toList());
+    }
+
+    @BeforeEach
+    void setUp() {
+        data = LongStream.rangeClosed(1, 1000)
+                .boxed()
+                .collect(Collectors.toList());
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 测试按键边界分区并按分区顺序输出。
+     * <p>
+     * 验证目标：
+     * 1. 确保并行扫描多个分区后整体仍然有序且不重复、不遗漏。
+     */
+    @Test
+    void testOrderedPartitions() {
+        PartitionedPager<Long, Long> pager = PartitionedPager.of(33, Arrays.asList(1L, 100L, 250L, 600L, 1001L), createProducer())
+                .parallelism(3, executor);
+
+        List<Long> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+    }
+
+    /**
+     * 测试按最小值、最大值切分分区并交错输出。
+     * <p>
+     * 验证目标：
+     * 1. 确保切分函数生成首尾相接的分区。
+     * 2. 确保交错输出时所有元素都被检索到。
+     */
+    @Test
+    void testUnorderedPartitions() {
+        assertEquals(Arrays.asList(1L, 4L, 7L, 10L), PartitionedPager.KeySplitter.ofLong().split(1L, 10L, 3));
+
+        PartitionedPager<Long, Long> pager = PartitionedPager.of(50, 1L, 1001L, 7, PartitionedPager.KeySplitter.ofLong(), createProducer())
+                .parallelism(4, executor)
+                .bufferPages(3)
+                .unordered();
+        assertEquals(7, pager.getPartitions().size());
+
+        List<Long> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        Collections.sort(result);
+        assertEquals(data, result);
+    }
+
+    /**
+     * 测试分区扫描失败。
+     * <p>
+     * 验证目标：
+     * 1. 确保分区生产者抛出的异常原样传递给消费者。
+     */
+    @Test
+    void testPartitionFailure() {
+        RangeDataProducer<Long, Long> producer = createProducer();
+        PartitionedPager<Long, Long> pager = PartitionedPager.<Long, Long>of(10, Arrays.asList(1L, 500L, 1001L), (range, p, last) -> {
+                    if (range.contains(700L) && last != null) {
+                        throw new IllegalArgumentException("boom");
+                    }
+                    return producer.next(range, p, last);
+                })
+                .parallelism(2, executor)
+                .unordered();
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> pager.concat().forEachRemaining(id -> {
+        }));
+    }
+
+    /**
+     * 测试提前结束逐个元素的迭代。
+     * <p>
+     * 验证目标：
+     * 1. 确保关闭{@link PagedIterable#closeableConcat()}返回的迭代器后后台扫描任务全部结束。
+     */
+    @Test
+    void testCloseConcatEarly() throws InterruptedException {
+        PartitionedPager<Long, Long> pager = PartitionedPager.of(10, 1L, 1001L, 4, PartitionedPager.KeySplitter.ofLong(), createProducer())
+                .parallelism(4, executor);
+
+        List<Long> result = new ArrayList<>();
+        try (CloseableIterator<Long> iterator = pager.closeableConcat()) {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+                if (result.size() == 5) {
+                    break;
+                }
+            }
+        }
+        assertEquals(data.subList(0, 5), result);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
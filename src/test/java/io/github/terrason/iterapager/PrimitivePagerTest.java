@@ -0,0 +1,116 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitivePagerTest {
+    private static final long[] IDS = LongStream.rangeClosed(1, 100).map(i -> i * 10).toArray();
+
+    private static long[] after(long lastKey, int limit) {
+        int start = 0;
+        while (start < IDS.length && IDS[start] <= lastKey) {
+            start++;
+        }
+        return Arrays.copyOfRange(IDS, start, Math.min(start + limit, IDS.length));
+    }
+
+    /**
+     * 测试按偏移量分页的 LongPager。
+     * <p>
+     * 验证目标：
+     * 1. 确保逐个元素迭代、LongStream 和逐页迭代都能得到全部数据。
+     * 2. 确保不满一页时停止获取。
+     */
+    @Test
+    void testLongPager() {
+        List<Integer> offsets = new ArrayList<>();
+        LongPager pager = new LongPager(30, pageable -> {
+            offsets.add(pageable.offset());
+            int start = Math.min(pageable.offset(), IDS.length);
+            return Arrays.copyOfRange(IDS, start, Math.min(start + 30, IDS.length));
+        });
+
+        PrimitiveIterator.OfLong iterator = pager.concat();
+        List<Long> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            result.add(iterator.nextLong());
+        }
+        assertEquals(LongStream.of(IDS).boxed().collect(Collectors.toList()), result);
+        assertEquals(Arrays.asList(0, 30, 60, 90), offsets);
+
+        assertEquals(LongStream.of(IDS).sum(), pager.stream().sum());
+        int pages = 0;
+        for (long[] page : pager) {
+            assertTrue(page.length <= 30);
+            pages++;
+        }
+        assertEquals(4, pages);
+    }
+
+    /**
+     * 测试有序查询的 LongPager。
+     * <p>
+     * 验证目标：
+     * 1. 确保第一次使用初始游标，之后使用上一页的最后一个元素。
+     * 2. 确保生产者返回 {@code null} 或空数组时停止迭代。
+     */
+    @Test
+    void testLongPagerOrdered() {
+        List<Long> keys = new ArrayList<>();
+        LongPager pager = LongPager.ofOrdered(25, 0, (pageable, lastKey) -> {
+            keys.add(lastKey);
+            long[] page = after(lastKey, pageable.getLimit());
+            return page.length == 0 ? null : page;
+        });
+        assertArrayEquals(IDS, pager.stream().toArray());
+        assertEquals(Arrays.asList(0L, 250L, 500L, 750L, 1000L), keys);
+
+        PagerMetrics metrics = new PagerMetrics();
+        assertEquals(IDS.length, pager.listener(metrics).prefetch(1).stream().count());
+        assertEquals(PagerListener.EndReason.EMPTY_PAGE, metrics.getEndReason());
+        assertThrows(UnsupportedOperationException.class, () -> pager.fanOut(2));
+
+        keys.clear();
+        assertArrayEquals(IDS, pager.lookahead().stream().toArray());
+        assertEquals(Arrays.asList(0L, 250L, 500L, 750L), keys);
+    }
+
+    /**
+     * 测试 IntPager。
+     * <p>
+     * 验证目标：
+     * 1. 确保按偏移量分页和有序查询都能得到全部数据。
+     * 2. 确保使用缓存后重复迭代不再调用生产者。
+     */
+    @Test
+    void testIntPager() {
+        int[] data = IntStream.range(0, 55).toArray();
+        IntPager pager = IntPager.ofOrdered(10, -1, (pageable, lastKey) ->
+                Arrays.copyOfRange(data, lastKey + 1, Math.min(lastKey + 1 + pageable.getLimit(), data.length)));
+        assertArrayEquals(data, pager.stream().toArray());
+
+        List<Integer> calls = new ArrayList<>();
+        IntPager cached = new IntPager(10, pageable -> {
+            calls.add(pageable.page());
+            int start = Math.min(pageable.offset(), data.length);
+            return Arrays.copyOfRange(data, start, Math.min(start + 10, data.length));
+        }).cached(PageCache.builder().build(), "ints");
+        assertEquals(IntStream.of(data).sum(), cached.stream().sum());
+        assertEquals(IntStream.of(data).sum(), cached.stream().sum());
+        assertEquals(6, calls.size());
+
+        Collection<int[]> pages = new ArrayList<>();
+        cached.forEach(pages::add);
+        assertEquals(6, pages.size());
+    }
+}
@@ -0,0 +1,247 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private List<Integer> data;
+    private Map<Integer, AtomicInteger> attempts;
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 100)
+                .boxed()
+                .collect(Collectors.toList());
+        attempts = new ConcurrentHashMap<>();
+    }
+
+    private List<Integer> page(Pageable pageable) {
+        int start = Math.min(pageable.offset(), data.size());
+        return data.subList(start, Math.min(start + pageable.getLimit(), data.size()));
+    }
+
+    private int attempt(Pageable pageable) {
+        return attempts.computeIfAbsent(pageable.page(), p -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 测试失败重试。
+     * <p>
+     * 验证目标：
+     * 1. 确保失败后按退避时间重试，最终得到全部数据。
+     * 2. 确保超过最多尝试次数或异常不需要重试时抛出原异常。
+     */
+    @Test
+    void testRetry() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .maxAttempts(3)
+                .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+                .build();
+        IteraPager<Integer> pager = new IteraPager<Integer>(30, pageable -> {
+            if (pageable.page() == 2 && attempt(pageable) < 3) {
+                throw new IllegalStateException("暂时不可用");
+            }
+            return page(pageable);
+        }).retry(policy);
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertEquals(2, policy.getRetryCount());
+        assertEquals(0, policy.getFailureCount());
+
+        RetryPolicy once = RetryPolicy.builder()
+                .maxAttempts(2)
+                .backoff(Duration.ZERO, Duration.ZERO)
+                .build();
+        IteraPager<Integer> failing = new IteraPager<Integer>(30, pageable -> {
+            throw new IllegalStateException("不可用");
+        }).retry(once);
+        assertThrows(IllegalStateException.class, () -> failing.concat().hasNext());
+        assertEquals(1, once.getRetryCount());
+        assertEquals(1, once.getFailureCount());
+
+        RetryPolicy noRetry = RetryPolicy.builder()
+                .retryOn(e -> !(e instanceof IllegalArgumentException))
+                .build();
+        IteraPager<Integer> invalid = new IteraPager<Integer>(30, pageable -> {
+            throw new IllegalArgumentException("参数错误");
+        }).retry(noRetry);
+        assertThrows(IllegalArgumentException.class, () -> invalid.concat().hasNext());
+        assertEquals(0, noRetry.getRetryCount());
+    }
+
+    /**
+     * 测试调用线程被中断。
+     * <p>
+     * 验证目标：
+     * 1. 确保阻塞在获取中的线程被中断后不再重试，抛出异常并保留中断标记。
+     * 2. 确保在调用线程中获取和在线程池中获取（超时控制）时行为一致。
+     */
+    @Test
+    void testInterrupt() throws InterruptedException {
+        RetryPolicy[] policies = {
+                RetryPolicy.builder()
+                        .maxAttempts(5)
+                        .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+                        .build(),
+                RetryPolicy.builder()
+                        .maxAttempts(5)
+                        .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+                        .timeout(Duration.ofSeconds(10))
+                        .build()
+        };
+        for (RetryPolicy policy : policies) {
+            AtomicInteger calls = new AtomicInteger();
+            CountDownLatch blocked = new CountDownLatch(1);
+            IteraPager<Integer> pager = new IteraPager<Integer>(30, pageable -> {
+                calls.incrementAndGet();
+                blocked.countDown();
+                try {
+                    TimeUnit.SECONDS.sleep(10);
+                } catch (InterruptedException e) {
+                    //不恢复中断标记
+                    throw new IllegalStateException(e);
+                }
+                return page(pageable);
+            }).retry(policy);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            AtomicBoolean interrupted = new AtomicBoolean();
+            Thread thread = new Thread(() -> {
+                try {
+                    pager.concat().hasNext();
+                } catch (RuntimeException e) {
+                    error.set(e);
+                    interrupted.set(Thread.currentThread().isInterrupted());
+                }
+            });
+            thread.start();
+            assertTrue(blocked.await(1, TimeUnit.SECONDS));
+            thread.interrupt();
+            thread.join(2000);
+            assertFalse(thread.isAlive());
+            assertInstanceOf(IllegalStateException.class, error.get());
+            assertTrue(interrupted.get());
+            assertEquals(1, calls.get());
+            assertEquals(0, policy.getRetryCount());
+        }
+    }
+
+    /**
+     * 测试外部传入分页参数的分页。
+     * <p>
+     * 验证目标：
+     * 1. 确保重试包装后仍推进外部传入的分页参数，得到全部数据。
+     */
+    @Test
+    void testPageableHeld() {
+        PageQuery query = PageQuery.of(1, 10);
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> rows = data.subList(0, 25);
+        IteraPager<Integer> pager = new IteraPager<Integer>(query, () -> {
+            calls.incrementAndGet();
+            int start = Math.min(query.offset(), rows.size());
+            return rows.subList(start, Math.min(start + 10, rows.size()));
+        }).retry(RetryPolicy.builder().build());
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(rows, result);
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * 测试超时。
+     * <p>
+     * 验证目标：
+     * 1. 确保单次获取超时后中断执行线程并重试。
+     * 2. 确保每次都超时时抛出异常。
+     */
+    @Test
+    void testTimeout() throws InterruptedException {
+        RetryPolicy policy = RetryPolicy.builder()
+                .timeout(Duration.ofMillis(50))
+                .backoff(Duration.ZERO, Duration.ZERO)
+                .build();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        IteraPager<Integer> pager = new IteraPager<Integer>(30, pageable -> {
+            if (pageable.page() == 1 && attempt(pageable) == 1) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(2000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return page(pageable);
+        }).retry(policy);
+        long start = System.nanoTime();
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, policy.getTimeoutCount());
+        assertEquals(1, policy.getRetryCount());
+        //超时的获取被中断，不再继续执行
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+
+        IteraPager<Integer> slow = new IteraPager<Integer>(30, pageable -> {
+            sleep(2000);
+            return page(pageable);
+        }).retry(RetryPolicy.builder().maxAttempts(1).timeout(Duration.ofMillis(20)).build());
+        assertThrows(IllegalStateException.class, () -> slow.concat().hasNext());
+    }
+
+    /**
+     * 测试对冲请求。
+     * <p>
+     * 验证目标：
+     * 1. 确保获取耗时超过最近耗时的分位数时发起对冲请求，并采用先返回的结果。
+     * 2. 确保数据不重复、不丢失。
+     */
+    @Test
+    void testHedge() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .hedge(0.5, 5)
+                .build();
+        IteraPager<Integer> pager = new IteraPager<Integer>(5, pageable -> {
+            if (pageable.page() == 15 && attempt(pageable) == 1) {
+                sleep(3000);
+            } else {
+                sleep(2);
+            }
+            return page(pageable);
+        }).retry(policy);
+        long start = System.nanoTime();
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(policy.getHedgeCount() >= 1);
+        assertTrue(policy.getHedgeWinCount() >= 1);
+        assertEquals(0, policy.getRetryCount());
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeekKeyTest {
+
+    private List<Row> rows;
+    private SeekKey<Row> key;
+
+    @BeforeEach
+    void setUp() {
+        //每天10条，日期重复，按日期降序、ID升序排列
+        rows = IntStream.range(0, 95)
+                .mapToObj(i -> new Row(i, LocalDate.of(2024, 1, 1).plusDays(i % 10)))
+                .collect(Collectors.toList());
+        key = SeekKey.<Row>builder()
+                .desc("created_at", Row::getCreatedAt)
+                .tieBreaker("id", Row::getId)
+                .build();
+        rows.sort((a, b) -> {
+            int c = b.createdAt.compareTo(a.createdAt);
+            return c != 0 ? c : Long.compare(a.id, b.id);
+        });
+    }
+
+    private Collection<Row> query(SeekKey.Cursor cursor, int limit) {
+        return rows.stream()
+                .filter(row -> key.isAfter(row, cursor))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 测试按复合排序键分页。
+     * <p>
+     * 验证目标：
+     * 1. 确保排序列的值在页边界重复时，数据不丢失也不重复。
+     * 2. 确保从编码后的游标继续时，从游标之后开始。
+     */
+    @Test
+    void testSeekPaging() {
+        List<SeekKey.Cursor> cursors = new ArrayList<>();
+        IteraPager<Row> pager = IteraPager.ofSeek(7, key, (pageable, cursor) -> {
+            cursors.add(cursor);
+            return query(cursor, pageable.getLimit());
+        });
+        List<Row> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(rows, result);
+        assertNull(cursors.get(0));
+        assertEquals(key.cursorOf(rows.get(6)), cursors.get(1));
+
+        String encoded = key.cursorOf(rows.get(41)).encode();
+        List<Row> resumed = new ArrayList<>();
+        IteraPager.ofSeek(7, key, key.decode(encoded), (pageable, cursor) -> query(cursor, pageable.getLimit()))
+                .concat()
+                .forEachRemaining(resumed::add);
+        assertEquals(rows.subList(42, rows.size()), resumed);
+    }
+
+    /**
+     * 测试游标的序列化和 SQL 生成。
+     * <p>
+     * 验证目标：
+     * 1. 确保各种类型的值编码后能原样还原，Java 序列化也能还原。
+     * 2. 确保生成的条件、排序子句和参数顺序一致。
+     * 3. 确保缺少唯一列、唯一列不在最后、游标格式错误时抛出异常。
+     */
+    @Test
+    void testCursor() throws Exception {
+        SeekKey.Cursor cursor = key.cursorOf(rows.get(0));
+        assertEquals(cursor, key.decode(cursor.encode()));
+        assertEquals(Arrays.asList(rows.get(0).createdAt, rows.get(0).id), cursor.values());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(cursor);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(cursor, in.readObject());
+        }
+
+        assertEquals("((created_at < ?) or (created_at = ? and id > ?))", key.predicate());
+        assertEquals("created_at desc, id asc", key.orderBy());
+        assertEquals(Arrays.asList(cursor.get(0), cursor.get(0), cursor.get(1)), cursor.parameters());
+
+        SeekKey<Row> single = SeekKey.<Row>builder().tieBreakerDesc("id", Row::getId).build();
+        assertEquals("id < ?", single.predicate());
+
+        assertThrows(IllegalStateException.class, () -> SeekKey.<Row>builder().asc("created_at", Row::getCreatedAt).build());
+        assertThrows(IllegalStateException.class, () -> SeekKey.<Row>builder()
+                .tieBreaker("id", Row::getId)
+                .asc("created_at", Row::getCreatedAt));
+        assertThrows(IllegalArgumentException.class, () -> single.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> key.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> key.cursorOf(new Row(1, null)));
+    }
+
+    /**
+     * 测试{@link Timestamp}类型的游标编码。
+     * <p>
+     * 验证目标：
+     * 1. 确保还原后仍是{@link Timestamp}，且保留毫秒以下的纳秒部分。
+     * 2. 确保同一毫秒内的数据从还原的游标继续时不跳过也不重复。
+     */
+    @Test
+    void testTimestampCursor() {
+        Timestamp base = Timestamp.valueOf("2024-01-01 10:00:00.123456789");
+        Timestamp later = Timestamp.valueOf("2024-01-01 10:00:00.123456999");
+        SeekKey<Timestamp> timestampKey = SeekKey.<Timestamp>builder().tieBreaker("created_at", t -> t).build();
+
+        Object decoded = timestampKey.decode(timestampKey.cursorOf(base).encode()).get(0);
+        assertEquals(Timestamp.class, decoded.getClass());
+        assertEquals(base, decoded);
+        assertEquals(123456789, ((Timestamp) decoded).getNanos());
+        assertTrue(timestampKey.isAfter(later, timestampKey.decode(timestampKey.cursorOf(base).encode())));
+        assertFalse(timestampKey.isAfter(base, timestampKey.decode(timestampKey.cursorOf(base).encode())));
+    }
+
+    static class Row {
+        private final long id;
+        private final LocalDate createdAt;
+
+        Row(long id, LocalDate createdAt) {
+            this.id = id;
+            this.createdAt = createdAt;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public LocalDate getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
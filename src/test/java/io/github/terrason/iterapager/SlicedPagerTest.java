@@ -0,0 +1,129 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlicedPagerTest {
+
+    private List<Integer> data;
+    private List<String> requests;
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 100)
+                .boxed()
+                .collect(Collectors.toList());
+        requests = new ArrayList<>();
+    }
+
+    /**
+     * 按偏移量和条数查询，记录每次请求
+     */
+    private IteraPager<Integer> pager() {
+        return new IteraPager<>(10, pageable -> {
+            requests.add(pageable.offset() + "+" + pageable.getLimit());
+            int start = Math.min(pageable.offset(), data.size());
+            return data.subList(start, Math.min(start + pageable.getLimit(), data.size()));
+        });
+    }
+
+    private List<Integer> collect(Iterable<Integer> iterable) {
+        List<Integer> result = new ArrayList<>();
+        iterable.forEach(result::add);
+        return result;
+    }
+
+    /**
+     * 测试跳过和限制条数。
+     * <p>
+     * 验证目标：
+     * 1. 确保从跳过的条数所在的页开始获取。
+     * 2. 确保最后一次获取只请求剩余的条数，达到条数后不再获取。
+     */
+    @Test
+    void testSkipAndLimit() {
+        assertEquals(data.subList(0, 15), collect(pager().limit(15).flat()));
+        assertEquals(Arrays.asList("0+10", "10+5"), requests);
+
+        requests.clear();
+        assertEquals(data.subList(35, 100), collect(pager().skip(35).flat()));
+        assertEquals("30+10", requests.get(0));
+        //第100条恰好满页，需要再请求一次空页
+        assertEquals(Arrays.asList("30+10", "40+10", "50+10", "60+10", "70+10", "80+10", "90+10", "100+10"), requests);
+
+        requests.clear();
+        assertEquals(data.subList(35, 47), collect(pager().skip(35).limit(12).flat()));
+        assertEquals(Arrays.asList("30+10", "40+7"), requests);
+
+        requests.clear();
+        assertEquals(data.subList(95, 100), collect(pager().limit(20).skip(95).flat()));
+        assertEquals(Arrays.asList("90+10", "100+10"), requests);
+
+        requests.clear();
+        assertTrue(collect(pager().limit(0).flat()).isEmpty());
+        assertTrue(requests.isEmpty());
+
+        //生产者忽略请求的条数时在内存中截取
+        IteraPager<Integer> fixed = new IteraPager<>(10, pageable -> {
+            int start = (pageable.page() - 1) * 10;
+            return data.subList(start, Math.min(start + 10, data.size()));
+        });
+        assertEquals(data.subList(23, 28), collect(fixed.skip(23).limit(5).flat()));
+        assertThrows(IllegalArgumentException.class, () -> fixed.limit(-1));
+    }
+
+    /**
+     * 测试按条件截止。
+     * <p>
+     * 验证目标：
+     * 1. 确保遇到第一个不满足条件的元素时结束，不再获取后续页。
+     * 2. 确保分页按页返回裁剪后的数据。
+     */
+    @Test
+    void testWhileTrue() {
+        List<Collection<Integer>> pages = new ArrayList<>();
+        pager().whileTrue(i -> i <= 25).forEach(pages::add);
+        assertEquals(Arrays.asList(data.subList(0, 10), data.subList(10, 20), data.subList(20, 25)), pages);
+        assertEquals(3, requests.size());
+
+        PagerMetrics metrics = new PagerMetrics();
+        IteraPager<Integer> pager = pager().listener(metrics);
+        assertEquals(data.subList(10, 12), collect(pager.skip(10).whileTrue(i -> i % 13 != 0).flat()));
+        assertEquals(PagerListener.EndReason.PREDICATE_FAILED, metrics.getEndReason());
+    }
+
+    /**
+     * 测试有序分页。
+     * <p>
+     * 验证目标：
+     * 1. 确保从指定元素之后开始获取。
+     * 2. 确保跳过的数据仍需获取，非List的页也能正确裁剪。
+     */
+    @Test
+    void testOrdered() {
+        List<Integer> lasts = new ArrayList<>();
+        IteraPager<Integer> ordered = IteraPager.ofOrdered(10, (pageable, last) -> {
+            lasts.add(last);
+            int start = last == null ? 0 : last;
+            return new LinkedHashSet<>(data.subList(Math.min(start, data.size()), Math.min(start + pageable.getLimit(), data.size())));
+        });
+        assertEquals(data.subList(42, 50), collect(ordered.after(42).limit(8).flat()));
+        assertEquals(Arrays.asList(42), lasts);
+
+        lasts.clear();
+        assertEquals(data.subList(25, 31), collect(ordered.skip(25).limit(6).flat()));
+        assertEquals(Arrays.asList(null, 10, 20, 30), lasts);
+
+        assertThrows(UnsupportedOperationException.class, () -> pager().after(1));
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottleTest {
+
+    private List<Integer> data;
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 100)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    private IteraPager<Integer> createPager(int batchSize) {
+        return new IteraPager<>(batchSize, pageable -> {
+            int start = Math.min(pageable.offset(), data.size());
+            return data.subList(start, Math.min(start + batchSize, data.size()));
+        });
+    }
+
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * 测试外部传入分页参数的分页。
+     * <p>
+     * 验证目标：
+     * 1. 确保限速包装后仍推进外部传入的分页参数，得到全部数据。
+     */
+    @Test
+    void testPageableHeld() {
+        PageQuery query = PageQuery.of(1, 10);
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> rows = data.subList(0, 25);
+        IteraPager<Integer> pager = new IteraPager<Integer>(query, () -> {
+            calls.incrementAndGet();
+            int start = Math.min(query.offset(), rows.size());
+            return rows.subList(start, Math.min(start + 10, rows.size()));
+        }).throttle(Throttle.pagesPerSecond(1000));
+        List<Integer> result = new ArrayList<>();
+        pager.concat().forEachRemaining(result::add);
+        assertEquals(rows, result);
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * 测试按页数和条数限速。
+     * <p>
+     * 验证目标：
+     * 1. 确保逐页迭代时每秒获取的页数不超过限制。
+     * 2. 确保按条数限速时按返回的条数计算等待时间。
+     * 3. 确保预取时多个线程共同受限。
+     */
+    @Test
+    void testTokenBucket() {
+        Throttle pages = Throttle.pagesPerSecond(50);
+        long start = System.nanoTime();
+        List<Integer> result = new ArrayList<>();
+        createPager(10).throttle(pages).concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        //11次获取，间隔20ms
+        assertTrue(millisSince(start) >= 180, "耗时" + millisSince(start));
+        assertTrue(pages.getThrottledCount() >= 9);
+
+        Throttle rows = Throttle.rowsPerSecond(1000);
+        start = System.nanoTime();
+        assertEquals(100, createPager(25).throttle(rows).stream().count());
+        //每页25条需要25ms，第5次获取等待前4页
+        assertTrue(millisSince(start) >= 90, "耗时" + millisSince(start));
+
+        Throttle shared = Throttle.pagesPerSecond(100);
+        start = System.nanoTime();
+        result.clear();
+        createPager(10).throttle(shared).prefetch(4).concat().forEachRemaining(result::add);
+        assertEquals(data, result);
+        assertTrue(millisSince(start) >= 90, "耗时" + millisSince(start));
+    }
+
+    /**
+     * 测试突发容量。
+     * <p>
+     * 验证目标：
+     * 1. 确保空闲后最多额外 burst 次获取不需要等待，之后按速率等待。
+     * 2. 确保空闲时间再长也不会累积超过突发容量的令牌。
+     */
+    @Test
+    void testBurst() throws InterruptedException {
+        Throttle throttle = Throttle.pagesPerSecond(10, 5);
+        PageProducer<Integer> producer = throttle.wrap((pageable, last) -> PageElements.of(1, 1));
+        for (int round = 0; round < 2; round++) {
+            long throttled = throttle.getThrottledCount();
+            long start = System.nanoTime();
+            for (int i = 0; i < 6; i++) {
+                producer.next(PageQuery.of(1, 1), null);
+            }
+            assertEquals(throttled, throttle.getThrottledCount());
+            assertTrue(millisSince(start) < 90, "耗时" + millisSince(start));
+            producer.next(PageQuery.of(1, 1), null);
+            assertEquals(throttled + 1, throttle.getThrottledCount());
+            assertTrue(millisSince(start) >= 90, "耗时" + millisSince(start));
+            //空闲足够长时间，令牌补满
+            TimeUnit.MILLISECONDS.sleep(1200);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> Throttle.pagesPerSecond(10, -1));
+    }
+
+    /**
+     * 测试 AIMD 模式。
+     * <p>
+     * 验证目标：
+     * 1. 确保耗时超过阈值时速率减半，且不低于最小速率。
+     * 2. 确保耗时恢复后速率逐步增加，且不超过最大速率。
+     */
+    @Test
+    void testAimd() throws InterruptedException {
+        Throttle throttle = Throttle.aimd(Duration.ofMillis(5), 100, 1000);
+        assertEquals(1000, throttle.getRate());
+        PageProducer<Integer> slow = throttle.wrap((pageable, last) -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return PageElements.of(1, 1);
+        });
+        PageProducer<Integer> fast = throttle.wrap((pageable, last) -> PageElements.of(1, 1));
+
+        slow.next(PageQuery.of(1, 1), null);
+        assertEquals(500, throttle.getRate(), 0.001);
+        for (int i = 0; i < 5; i++) {
+            slow.next(PageQuery.of(1, 1), null);
+        }
+        assertEquals(100, throttle.getRate(), 0.001);
+
+        fast.next(PageQuery.of(1, 1), null);
+        assertEquals(145, throttle.getRate(), 0.001);
+        for (int i = 0; i < 30; i++) {
+            fast.next(PageQuery.of(1, 1), null);
+        }
+        assertEquals(1000, throttle.getRate(), 0.001);
+
+        assertThrows(IllegalArgumentException.class, () -> Throttle.pagesPerSecond(0));
+        assertThrows(IllegalArgumentException.class, () -> Throttle.aimd(Duration.ofMillis(5), 10, 1));
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnionPagerTest {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * 第tenant个租户的数据为 tenant*1000+1 .. tenant*1000+rows
+     */
+    private IteraPager<Integer> tenant(int tenant, int rows, long delayMillis) {
+        List<Integer> data = IntStream.rangeClosed(1, rows).map(i -> tenant * 1000 + i).boxed().collect(Collectors.toList());
+        return new IteraPager<>(10, pageable -> {
+            calls.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+                int start = Math.min(pageable.offset(), data.size());
+                return data.subList(start, Math.min(start + 10, data.size()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 测试并发合并多个数据源。
+     * <p>
+     * 验证目标：
+     * 1. 确保得到所有数据源的全部数据。
+     * 2. 确保同时扫描的数据源不超过并行数。
+     */
+    @Test
+    void testUnion() {
+        List<IteraPager<Integer>> tenants = IntStream.range(0, 6)
+                .mapToObj(i -> tenant(i, 25 + i, 5))
+                .collect(Collectors.toList());
+        UnionPager<Integer> union = UnionPager.of(tenants).parallelism(3).maxBufferedPages(4);
+
+        List<Integer> result = new ArrayList<>();
+        union.concat().forEachRemaining(result::add);
+        Collections.sort(result);
+        List<Integer> expected = new ArrayList<>();
+        tenants.forEach(t -> t.flat().forEach(expected::add));
+        Collections.sort(expected);
+        assertEquals(expected, result);
+        assertTrue(maxRunning.get() > 1);
+        assertTrue(maxRunning.get() <= 3);
+
+        assertFalse(UnionPager.<Integer>of(Collections.emptyList()).iterator().hasNext());
+    }
+
+    /**
+     * 测试数据源失败。
+     * <p>
+     * 验证目标：
+     * 1. 确保消费者收到第一个异常。
+     * 2. 确保其他数据源停止扫描，未开始的数据源不再开始。
+     */
+    @Test
+    void testFailure() throws InterruptedException {
+        List<IteraPager<Integer>> tenants = new ArrayList<>();
+        tenants.add(tenant(0, 1000, 10));
+        tenants.add(new IteraPager<>(10, pageable -> {
+            throw new UnsupportedOperationException("租户不可用");
+        }));
+        for (int i = 2; i < 6; i++) {
+            tenants.add(tenant(i, 1000, 10));
+        }
+        UnionPager<Integer> union = UnionPager.of(tenants).parallelism(2);
+        assertThrows(UnsupportedOperationException.class, () -> union.concat().forEachRemaining(e -> {
+        }));
+        TimeUnit.MILLISECONDS.sleep(100);
+        int stopped = calls.get();
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(stopped, calls.get());
+        assertTrue(stopped < 20);
+    }
+
+    /**
+     * 测试提前结束迭代。
+     * <p>
+     * 验证目标：
+     * 1. 确保关闭{@link PagedIterable#closeableConcat()}返回的迭代器后扫描线程全部结束，不再调用生产者。
+     */
+    @Test
+    void testCloseEarly() throws InterruptedException {
+        List<IteraPager<Integer>> tenants = IntStream.range(0, 4)
+                .mapToObj(i -> tenant(i, 1000, 1))
+                .collect(Collectors.toList());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            UnionPager<Integer> union = UnionPager.of(tenants).parallelism(2, executor);
+            int count = 0;
+            try (CloseableIterator<Integer> iterator = union.closeableConcat()) {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    if (++count == 15) {
+                        break;
+                    }
+                }
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(calls.get() < 20);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
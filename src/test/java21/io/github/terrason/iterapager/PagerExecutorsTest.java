@@ -0,0 +1,35 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagerExecutorsTest {
+
+    /**
+     * 测试 Java 21 及以上版本的默认线程。
+     * <p>
+     * 验证目标：
+     * 1. 确保获取任务和工作线程都运行在命名的虚拟线程中。
+     * 2. 确保工作线程池关闭后线程全部结束。
+     */
+    @Test
+    void testVirtualThreads() throws Exception {
+        assertTrue(PagerExecutors.isVirtual());
+
+        Thread fetch = CompletableFuture.supplyAsync(Thread::currentThread, PagerExecutors.perFetch()).get(5, TimeUnit.SECONDS);
+        assertTrue(fetch.isVirtual());
+        assertTrue(fetch.getName().startsWith("iterapager-fetch-"), fetch.getName());
+
+        ExecutorService workers = PagerExecutors.newWorkerPool("iterapager-test", 2);
+        Thread worker = CompletableFuture.supplyAsync(Thread::currentThread, workers).get(5, TimeUnit.SECONDS);
+        assertTrue(worker.isVirtual());
+        assertTrue(worker.getName().startsWith("iterapager-test-"), worker.getName());
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.terrason.iterapager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowPublishersTest {
+
+    private List<Integer> data;
+    private AtomicInteger calls;
+
+    private IteraPager<Integer> createPager(int batchSize) {
+        return new IteraPager<>(batchSize, pageable -> {
+            calls.incrementAndGet();
+            int start = pageable.offset();
+            if (start >= data.size()) {
+                return Collections.emptyList();
+            }
+            return data.subList(start, Math.min(start + batchSize, data.size()));
+        });
+    }
+
+    @BeforeEach
+    void setUp() {
+        data = IntStream.rangeClosed(1, 100)
+                .boxed()
+                .collect(Collectors.toList());
+        calls = new AtomicInteger();
+    }
+
+    /**
+     * 测试按请求数量获取数据。
+     * <p>
+     * 验证目标：
+     * 1. 确保只获取满足请求数量所需的页数，请求恰好在页尾用完时只多获取一页。
+     * 2. 确保取消订阅后不再调用生产者。
+     */
+    @Test
+    void testDemandDrivenFetching() {
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+        FlowPublishers.elements(createPager(10), Runnable::run).subscribe(subscriber);
+
+        subscriber.subscription.request(15);
+        assertEquals(data.subList(0, 15), subscriber.received);
+        assertEquals(2, calls.get());
+
+        subscriber.subscription.request(5);
+        assertEquals(data.subList(0, 20), subscriber.received);
+        assertEquals(3, calls.get());
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(50);
+        assertEquals(20, subscriber.received.size());
+        assertEquals(3, calls.get());
+        assertFalse(subscriber.completed);
+    }
+
+    /**
+     * 测试逐页发布和完成信号。
+     * <p>
+     * 验证目标：
+     * 1. 确保每请求一页只多获取一页用于判断是否结束。
+     * 2. 确保数据全部发出后发出完成信号。
+     */
+    @Test
+    void testPagesAndCompletion() throws InterruptedException {
+        RecordingSubscriber<Collection<Integer>> pages = new RecordingSubscriber<>();
+        FlowPublishers.pages(createPager(30), Runnable::run).subscribe(pages);
+        pages.subscription.request(1);
+        assertEquals(1, pages.received.size());
+        assertEquals(2, calls.get());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+            FlowPublishers.elements(createPager(7), executor).subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+            assertTrue(subscriber.completed);
+            assertEquals(data, subscriber.received);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试请求数量恰好等于剩余元素数量时的完成信号。
+     * <p>
+     * 验证目标：
+     * 1. 确保请求恰好用完时立即发出完成信号，不需要再次请求。
+     * 2. 确保请求 Long.MAX_VALUE 后不再扣减，视为不限数量（规范 §3.17）。
+     */
+    @Test
+    void testCompletionOnExactDemand() {
+        RecordingSubscriber<Integer> exact = new RecordingSubscriber<>();
+        FlowPublishers.elements(createPager(10), Runnable::run).subscribe(exact);
+        exact.subscription.request(data.size());
+        assertEquals(data, exact.received);
+        assertTrue(exact.completed);
+        assertEquals(11, calls.get());
+
+        RecordingSubscriber<Integer> unbounded = new RecordingSubscriber<>() {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                if (received.size() == 5) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+            }
+        };
+        FlowPublishers.elements(createPager(10), Runnable::run).subscribe(unbounded);
+        unbounded.subscription.request(10);
+        assertEquals(data, unbounded.received);
+        assertTrue(unbounded.completed);
+    }
+
+    /**
+     * 测试错误信号。
+     * <p>
+     * 验证目标：
+     * 1. 确保请求数量不为正数时发出 IllegalArgumentException（规范 §3.9）。
+     * 2. 确保生产者抛出的异常通过 onError 发出。
+     */
+    @Test
+    void testErrors() {
+        RecordingSubscriber<Integer> invalid = new RecordingSubscriber<>();
+        FlowPublishers.elements(createPager(10), Runnable::run).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, invalid.error);
+
+        IteraPager<Integer> failing = new IteraPager<>(10, pageable -> {
+            throw new IllegalStateException("boom");
+        });
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+        FlowPublishers.elements(failing, Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertInstanceOf(IllegalStateException.class, subscriber.error);
+        assertTrue(subscriber.received.isEmpty());
+    }
+
+    /**
+     * 测试取消订阅时关闭数据源。
+     * <p>
+     * 验证目标：
+     * 1. 确保中途取消后关闭{@link CloseableIterator}数据源，不再发出信号。
+     */
+    @Test
+    void testCancelClosesSource() {
+        IteraPager<Integer> pager = createPager(10);
+        AtomicBoolean closed = new AtomicBoolean();
+        PagedIterable<Integer> closeable = () -> new CloseableIterator<Collection<Integer>>() {
+            private final Iterator<Collection<Integer>> pages = pager.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return pages.hasNext();
+            }
+
+            @Override
+            public Collection<Integer> next() {
+                return pages.next();
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+        FlowPublishers.elements(closeable, Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(15);
+        assertFalse(closed.get());
+
+        subscriber.subscription.cancel();
+        assertTrue(closed.get());
+        subscriber.subscription.request(10);
+        assertEquals(data.subList(0, 15), subscriber.received);
+        assertEquals(2, calls.get());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    static class RecordingSubscriber<E> implements Flow.Subscriber<E> {
+        final List<E> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(E item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}